@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.fetcher.github.json.GitHubContentsReader;
+import io.gravitee.fetcher.github.json.GitHubReaders;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of a <code>contents</code> API response on its own, JSON parsing and base64 decoding, without any network involved.
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({ "1024", "102400", "1048576", "10485760" })
+    private int payloadSize;
+
+    private byte[] response;
+    private GitHubContentsReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        response = GitHubPayloads.contents("docs/page.md", payloadSize);
+        reader = GitHubReaders.of(new ObjectMapper()).contents();
+    }
+
+    @Benchmark
+    public GitHubContentsReader.Contents decodeContents() throws Exception {
+        return reader.read(new ByteArrayInputStream(response));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.benchmark;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.gravitee.fetcher.api.Resource;
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.vertx.core.Vertx;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput and latency of {@link GitHubFetcher#fetch()} against a local WireMock server, from the request to the decoded content.
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FetchBenchmark {
+
+    private static final String PATH = "docs/page.md";
+
+    @Param({ "1024", "102400", "1048576", "10485760" })
+    private int payloadSize;
+
+    private WireMockServer server;
+    private Vertx vertx;
+    private GitHubFetcher fetcher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new WireMockServer(wireMockConfig().dynamicPort());
+        server.start();
+        server.stubFor(
+            get(urlPathEqualTo("/repos/" + GitHubPayloads.OWNER + "/" + GitHubPayloads.REPOSITORY + "/contents/" + PATH)).willReturn(
+                aResponse().withStatus(200).withBody(GitHubPayloads.contents(PATH, payloadSize))
+            )
+        );
+        vertx = Vertx.vertx();
+        fetcher = GitHubPayloads.fetcher(vertx, server.baseUrl(), "/" + PATH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        vertx.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public void fetch(Blackhole blackhole) throws Exception {
+        final Resource resource = fetcher.fetch();
+        try (InputStream content = resource.getContent()) {
+            blackhole.consume(content.readAllBytes());
+        }
+        blackhole.consume(resource.getMetadata());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.gravitee.fetcher.github.GitHubFetcherConfiguration;
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds GitHub API responses of a given size and the fetchers reading them, shared by the benchmarks.
+ *
+ * @author GraviteeSource Team
+ */
+final class GitHubPayloads {
+
+    static final String OWNER = "owner";
+    static final String REPOSITORY = "myrepo";
+    static final String REF = "main";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private GitHubPayloads() {}
+
+    /**
+     * @return a response of the <code>contents</code> API for a file of the given size, base64 encoded in lines of 60 characters as
+     * GitHub does
+     */
+    static byte[] contents(String path, int size) throws Exception {
+        final byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        final String name = path.substring(path.lastIndexOf('/') + 1);
+
+        final Map<String, Object> response = new LinkedHashMap<>();
+        response.put("type", "file");
+        response.put("encoding", "base64");
+        response.put("size", size);
+        response.put("name", name);
+        response.put("path", path);
+        response.put("content", Base64.getMimeEncoder(60, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(content));
+        response.put("sha", "3d21ec53a331a6f037a91c368710b99387d012c1");
+        response.put("url", "https://api.github.com/repos/" + OWNER + "/" + REPOSITORY + "/contents/" + path + "?ref=" + REF);
+        response.put("html_url", "https://github.com/" + OWNER + "/" + REPOSITORY + "/blob/" + REF + "/" + path);
+        response.put("_links", Map.of("self", response.get("url"), "html", response.get("html_url")));
+        return MAPPER.writeValueAsBytes(response);
+    }
+
+    /**
+     * @return a response of the recursive <code>git/trees</code> API listing the given number of files under <code>directory</code>,
+     * spread over sub-directories of 100 files
+     */
+    static byte[] tree(String directory, int files) throws Exception {
+        final List<Map<String, Object>> entries = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            final String subdirectory = directory + "/dir" + (i / 100);
+            if (i % 100 == 0) {
+                entries.add(entry(subdirectory, "tree", i));
+            }
+            entries.add(entry(subdirectory + "/page" + i + (i % 2 == 0 ? ".md" : ".png"), "blob", i));
+        }
+
+        final Map<String, Object> response = new LinkedHashMap<>();
+        response.put("sha", "9fb037999f264ba9a7fc6274d15fa3ae2ab98312");
+        response.put("url", "https://api.github.com/repos/" + OWNER + "/" + REPOSITORY + "/git/trees/" + REF);
+        response.put("tree", entries);
+        response.put("truncated", false);
+        return MAPPER.writeValueAsBytes(response);
+    }
+
+    private static Map<String, Object> entry(String path, String type, int index) {
+        final Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("path", path);
+        entry.put("mode", "blob".equals(type) ? "100644" : "040000");
+        entry.put("type", type);
+        entry.put("sha", String.format("%040x", index));
+        if ("blob".equals(type)) {
+            entry.put("size", 1024);
+        }
+        return entry;
+    }
+
+    /**
+     * @return a fetcher of the given path, with its content cache disabled so that every fetch reaches the server. The resolution of the
+     * ref to a commit SHA is disabled as well: the server only stubs the URLs at {@link #REF}, and the contents and trees at a commit,
+     * being immutable, would be listed incrementally or served from the validator cache instead of being requested
+     */
+    static GitHubFetcher fetcher(Vertx vertx, String githubUrl, String filepath) {
+        final GitHubFetcherConfiguration configuration = new GitHubFetcherConfiguration();
+        configuration.setGithubUrl(githubUrl);
+        configuration.setOwner(OWNER);
+        configuration.setRepository(REPOSITORY);
+        configuration.setBranchOrTag(REF);
+        configuration.setFilepath(filepath);
+
+        final GitHubFetcher fetcher = new GitHubFetcher(configuration);
+        ReflectionTestUtils.setField(fetcher, "mapper", MAPPER);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 60_000);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 0L);
+        ReflectionTestUtils.setField(fetcher, "refResolverTtl", 0L);
+        fetcher.setVertx(vertx);
+        return fetcher;
+    }
+}
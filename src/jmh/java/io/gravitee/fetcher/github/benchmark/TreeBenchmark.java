@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.benchmark;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.vertx.core.Vertx;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latency of {@link GitHubFetcher#files()} against a local WireMock server, for repositories of growing size.
+ *
+ * @author GraviteeSource Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TreeBenchmark {
+
+    private static final String DIRECTORY = "docs";
+
+    @Param({ "1000", "10000", "50000", "200000" })
+    private int entries;
+
+    private WireMockServer server;
+    private Vertx vertx;
+    private GitHubFetcher fetcher;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new WireMockServer(wireMockConfig().dynamicPort());
+        server.start();
+        server.stubFor(
+            get(
+                urlPathEqualTo("/repos/" + GitHubPayloads.OWNER + "/" + GitHubPayloads.REPOSITORY + "/git/trees/" + GitHubPayloads.REF)
+            ).willReturn(aResponse().withStatus(200).withBody(GitHubPayloads.tree(DIRECTORY, entries)))
+        );
+        vertx = Vertx.vertx();
+        fetcher = GitHubPayloads.fetcher(vertx, server.baseUrl(), "/" + DIRECTORY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        vertx.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public String[] files() throws Exception {
+        return fetcher.files();
+    }
+}
@@ -15,25 +15,60 @@
  */
 package io.gravitee.fetcher.github;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import io.gravitee.common.http.HttpStatusCode;
 import io.gravitee.common.utils.UUID;
 import io.gravitee.fetcher.api.*;
+import io.gravitee.fetcher.github.archive.TarReader;
+import io.gravitee.fetcher.github.cache.BlobStore;
+import io.gravitee.fetcher.github.cache.CacheKeys;
+import io.gravitee.fetcher.github.cache.ContentCache;
+import io.gravitee.fetcher.github.cache.FileListingCache;
+import io.gravitee.fetcher.github.cache.RefResolver;
+import io.gravitee.fetcher.github.cache.ValidatorCache;
+import io.gravitee.fetcher.github.graphql.BlobsQuery;
+import io.gravitee.fetcher.github.http.CircuitBreakerSettings;
+import io.gravitee.fetcher.github.http.GitHubCircuitBreakers;
+import io.gravitee.fetcher.github.http.GitHubHttpClientRegistry;
+import io.gravitee.fetcher.github.http.GitHubRateLimiter;
+import io.gravitee.fetcher.github.http.GitHubRetrier;
+import io.gravitee.fetcher.github.http.GitHubResponse;
+import io.gravitee.fetcher.github.http.HttpClientSettings;
+import io.gravitee.fetcher.github.http.ProxySettings;
+import io.gravitee.fetcher.github.http.ResponseInputStream;
+import io.gravitee.fetcher.github.http.RetryPolicy;
+import io.gravitee.fetcher.github.http.RetryableStatusException;
+import io.gravitee.fetcher.github.http.SpooledBody;
+import io.gravitee.fetcher.github.json.GitHubContentsReader;
+import io.gravitee.fetcher.github.json.GitHubReaders;
+import io.gravitee.fetcher.github.json.GitHubTreeReader;
+import io.gravitee.fetcher.github.metrics.GitHubMetrics;
+import io.gravitee.fetcher.github.schedule.GitHubFetchScheduler;
+import io.gravitee.fetcher.github.util.AsyncSemaphore;
+import io.gravitee.fetcher.github.util.Futures;
+import io.gravitee.fetcher.github.util.RepositoryPaths;
+import io.gravitee.fetcher.github.util.SingleFlight;
+import io.micrometer.core.instrument.Tags;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.*;
-import io.vertx.core.net.ProxyOptions;
 import io.vertx.core.net.ProxyType;
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import lombok.CustomLog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -46,8 +81,34 @@ import org.springframework.scheduling.support.CronExpression;
 @CustomLog
 public class GitHubFetcher implements FilesFetcher {
 
+    /**
+     * Metadata holding the SHA of the last commit touching the fetched file.
+     */
+    public static final String COMMIT_SHA_PROPERTY_KEY = "commit_sha";
+    /**
+     * Metadata telling whether the file changed since the previous fetch.
+     */
+    public static final String CHANGED_PROPERTY_KEY = "changed";
+    /**
+     * Metadata telling that the file could not be fetched from GitHub, its circuit being open, and is the last known content instead.
+     */
+    public static final String STALE_PROPERTY_KEY = "stale";
+
     private static final String HTTPS_SCHEME = "https";
     private static final String VERSION_HEADER = "application/vnd.github.v3+json";
+    private static final String RAW_MEDIA_TYPE = "application/vnd.github.raw";
+    private static final String BLOB_RAW_MEDIA_TYPE = "application/vnd.github.raw+json";
+    private static final String SHA_MEDIA_TYPE = "application/vnd.github.sha";
+    // The compare API lists at most 300 changed files, a longer diff being silently cut
+    private static final int COMPARE_MAX_FILES = 300;
+    private static final String GITHUB_API_HOST = "api.github.com";
+    private static final String GITHUB_ENTERPRISE_API_PATH = "/api/v3";
+    private static final String NO_ENCODING = "none";
+    private static final int ARCHIVE_MAX_BUFFERED_CHUNKS = 64;
+    private static final int ARCHIVE_READ_BUFFER_SIZE = 64 * 1024;
+    private static final String DEFAULT_RETRY_EXCEPTIONS =
+        "java.io.IOException,java.util.concurrent.TimeoutException,io.vertx.core.http.HttpClosedException";
+    private static final Pattern BLOB_SHA_PATTERN = Pattern.compile("[0-9a-f]{40}");
     private GitHubFetcherConfiguration gitHubFetcherConfiguration;
 
     @Autowired
@@ -59,6 +120,145 @@ public class GitHubFetcher implements FilesFetcher {
     @Value("${httpClient.timeout:10000}")
     private int httpClientTimeout;
 
+    @Value("${httpClient.pool.maxSize:10}")
+    private int httpClientPoolMaxSize = 10;
+
+    @Value("${httpClient.pool.keepAliveTimeout:60}")
+    private int httpClientPoolKeepAliveTimeout = 60;
+
+    @Value("${httpClient.pool.idleClientTimeout:600000}")
+    private long httpClientPoolIdleClientTimeout = 600_000;
+
+    @Value("${httpClient.http2.enabled:true}")
+    private boolean httpClientHttp2Enabled = true;
+
+    @Value("${httpClient.http2.multiplexingLimit:-1}")
+    private int httpClientHttp2MultiplexingLimit = -1;
+
+    // The validator cache, the content cache and the blob store are shared by every fetcher of the node and may hold the same bytes
+    // each, their defaults keep about 48MB of heap at most. The content cache is disabled unless a TTL is configured, a fetch then
+    // returning content up to that old.
+    @Value("${fetcher.github.validatorCache.maxEntries:1000}")
+    private int validatorCacheMaxEntries = 1000;
+
+    @Value("${fetcher.github.validatorCache.maxSize:16777216}")
+    private long validatorCacheMaxSize = 16_777_216;
+
+    @Value("${fetcher.github.validatorCache.maxEntrySize:5242880}")
+    private long validatorCacheMaxEntrySize = 5_242_880;
+
+    @Value("${fetcher.github.validatorCache.directory:#{null}}")
+    private String validatorCacheDirectory;
+
+    @Value("${fetcher.github.contentCache.ttl:0}")
+    private long contentCacheTtl = 0;
+
+    @Value("${fetcher.github.contentCache.maxSize:16777216}")
+    private long contentCacheMaxSize = 16_777_216;
+
+    // Resolving the branch or tag to a commit costs a call to GitHub per TTL, counted against the rate limit, and any commit on the
+    // branch then turns the free conditional request of an unchanged file into a full download. It is disabled unless a TTL is set.
+    @Value("${fetcher.github.refResolver.ttl:0}")
+    private long refResolverTtl = 0;
+
+    @Value("${fetcher.github.incrementalListing.enabled:true}")
+    private boolean incrementalListingEnabled = true;
+
+    @Value("${fetcher.github.incrementalListing.maxChanges:300}")
+    private int incrementalListingMaxChanges = 300;
+
+    @Value("${fetcher.github.incrementalListing.maxEntries:1000}")
+    private int incrementalListingMaxEntries = 1_000;
+
+    @Value("${fetcher.github.maxResponseSize:104857600}")
+    private long maxResponseSize = 104_857_600;
+
+    @Value("${fetcher.github.spool.threshold:10485760}")
+    private long spoolThreshold = 10_485_760;
+
+    @Value("${fetcher.github.spool.directory:#{null}}")
+    private String spoolDirectory;
+
+    @Value("${fetcher.github.blobStore.maxSize:16777216}")
+    private long blobStoreMaxSize = 16_777_216;
+
+    @Value("${fetcher.github.blobStore.directory:#{null}}")
+    private String blobStoreDirectory;
+
+    @Value("${fetcher.github.blobStore.maxDiskSize:1073741824}")
+    private long blobStoreMaxDiskSize = 1_073_741_824;
+
+    @Value("${fetcher.github.batch.chunkSize:100}")
+    private int batchChunkSize = 100;
+
+    @Value("${fetcher.github.batch.parallelism:8}")
+    private int batchParallelism = 8;
+
+    @Value("${fetcher.github.tree.walkParallelism:8}")
+    private int treeWalkParallelism = 8;
+
+    @Value("${fetcher.github.schedule.jitterWindow:60000}")
+    private long scheduleJitterWindow = 60_000;
+
+    @Value("${fetcher.github.schedule.coalesceWindow:200}")
+    private long scheduleCoalesceWindow = 200;
+
+    @Value("${fetcher.github.maxConcurrentFetches:16}")
+    private int maxConcurrentFetches = 16;
+
+    @Value("${fetcher.github.rateLimit.maxWait:60000}")
+    private long rateLimitMaxWait = 60_000;
+
+    @Value("${fetcher.github.rateLimit.lowWatermark:100}")
+    private int rateLimitLowWatermark = 100;
+
+    @Value("${fetcher.github.retry.maxAttempts:3}")
+    private int retryMaxAttempts = 3;
+
+    @Value("${fetcher.github.retry.initialDelay:200}")
+    private long retryInitialDelay = 200;
+
+    @Value("${fetcher.github.retry.maxDelay:5000}")
+    private long retryMaxDelay = 5_000;
+
+    @Value("${fetcher.github.retry.deadline:30000}")
+    private long retryDeadline = 30_000;
+
+    // Injected as strings, the plugin context has no conversion service to split a comma separated value into a collection
+    @Value("${fetcher.github.retry.statusCodes:502,503,504}")
+    private String retryStatusCodes = "502,503,504";
+
+    @Value("${fetcher.github.retry.exceptions:" + DEFAULT_RETRY_EXCEPTIONS + "}")
+    private String retryExceptions = DEFAULT_RETRY_EXCEPTIONS;
+
+    // Off by default: while the circuit is open, fetches fail fast or serve the last known content, marked as stale
+    @Value("${fetcher.github.circuitBreaker.enabled:false}")
+    private boolean circuitBreakerEnabled = false;
+
+    @Value("${fetcher.github.circuitBreaker.failureRateThreshold:50}")
+    private int circuitBreakerFailureRateThreshold = 50;
+
+    @Value("${fetcher.github.circuitBreaker.slowCallRateThreshold:80}")
+    private int circuitBreakerSlowCallRateThreshold = 80;
+
+    @Value("${fetcher.github.circuitBreaker.slowCallDuration:5000}")
+    private long circuitBreakerSlowCallDuration = 5_000;
+
+    @Value("${fetcher.github.circuitBreaker.windowSize:20}")
+    private int circuitBreakerWindowSize = 20;
+
+    @Value("${fetcher.github.circuitBreaker.minimumCalls:10}")
+    private int circuitBreakerMinimumCalls = 10;
+
+    @Value("${fetcher.github.circuitBreaker.openDuration:30000}")
+    private long circuitBreakerOpenDuration = 30_000;
+
+    @Value("${fetcher.github.circuitBreaker.halfOpenProbes:3}")
+    private int circuitBreakerHalfOpenProbes = 3;
+
+    @Value("${fetcher.github.circuitBreaker.serveStale:true}")
+    private boolean circuitBreakerServeStale = true;
+
     @Value("${httpClient.proxy.type:HTTP}")
     private String httpClientProxyType;
 
@@ -97,63 +297,726 @@ public class GitHubFetcher implements FilesFetcher {
 
     @Override
     public Resource fetch() throws FetcherException {
-        checkRequiredFields(true);
-        JsonNode jsonNode = this.request(getFetchUrl());
-
-        final Resource resource = new Resource();
-        if (jsonNode != null) {
-            final Map<String, Object> metadata = mapper.convertValue(jsonNode, Map.class);
-            final Object content = metadata.remove("content");
-            if (content != null) {
-                final String contentAsBase64 = String.valueOf(content).replaceAll("\\n", "");
-                byte[] decodedContent = Base64.getDecoder().decode(contentAsBase64);
-                resource.setContent(new ByteArrayInputStream(decodedContent));
+        return await(fetchAsync());
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetch()}: no thread is parked while GitHub is called.
+     */
+    public Future<Resource> fetchAsync() {
+        try {
+            checkRequiredFields(true);
+        } catch (FetcherException e) {
+            return Future.failedFuture(e);
+        }
+        return operation("fetch", () -> fetchFile(gitHubFetcherConfiguration.getFilepath()));
+    }
+
+    /**
+     * Fetches the file only if it changed since the previous fetch.
+     *
+     * The SHA of the last commit touching the file is resolved with a small request and compared with the one recorded in the metadata
+     * of the previous fetch, under {@link #COMMIT_SHA_PROPERTY_KEY}. When it did not move, nothing is downloaded and the returned
+     * resource has no content. In both cases, the metadata tell under {@link #CHANGED_PROPERTY_KEY} whether the file changed.
+     *
+     * @param previousMetadata metadata of the resource returned by the previous fetch, <code>null</code> if there was none
+     */
+    public Resource fetchIfChanged(Map<String, Object> previousMetadata) throws FetcherException {
+        return await(fetchIfChangedAsync(previousMetadata));
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchIfChanged(Map)}.
+     */
+    public Future<Resource> fetchIfChangedAsync(Map<String, Object> previousMetadata) {
+        return operation("fetchIfChanged", () -> fetchFileIfChanged(previousMetadata));
+    }
+
+    private Future<Resource> fetchFileIfChanged(Map<String, Object> previousMetadata) {
+        try {
+            checkRequiredFields(true);
+        } catch (FetcherException e) {
+            return Future.failedFuture(e);
+        }
+        final String filepath = gitHubFetcherConfiguration.getFilepath();
+        return this.request(getCommitsUrl(filepath), VERSION_HEADER, this::readLastCommitSha).compose(commitSha -> {
+            final Object previousCommitSha = previousMetadata == null ? null : previousMetadata.get(COMMIT_SHA_PROPERTY_KEY);
+            if (commitSha != null && commitSha.equals(previousCommitSha)) {
+                log.debug("GitHub file '{}' did not change since commit {}", filepath, commitSha);
+                final Resource resource = new Resource();
+                final Map<String, Object> metadata = new HashMap<>(previousMetadata);
+                metadata.put(CHANGED_PROPERTY_KEY, false);
+                resource.setMetadata(metadata);
+                return Future.succeededFuture(resource);
+            }
+            // The content cached before the commit moved must not be served as the new one, nor be requested at the commit the ref
+            // was resolved to before
+            if (previousCommitSha != null) {
+                contentCache().invalidate(contentKey(filepath));
+                refResolver().invalidate(refKey(ref()));
+            }
+            return fetchFile(filepath).map(resource -> {
+                if (resource.getMetadata() == null) {
+                    resource.setMetadata(new HashMap<>());
+                }
+                if (commitSha != null) {
+                    resource.getMetadata().put(COMMIT_SHA_PROPERTY_KEY, commitSha);
+                }
+                resource.getMetadata().put(CHANGED_PROPERTY_KEY, true);
+                return resource;
+            });
+        });
+    }
+
+    private String readLastCommitSha(GitHubResponse response) throws IOException {
+        final List<GitHubReaders.Commit> commits = readers().readCommits(response.bodyAsStream());
+        return commits.isEmpty() ? null : commits.get(0).sha();
+    }
+
+    private Future<Resource> fetchFile(String filepath) {
+        final String contentKey = contentKey(filepath);
+        final ContentCache.Loader loader = gitHubFetcherConfiguration.isRawContent()
+            ? () -> loadRawContent(filepath)
+            : () -> loadContent(filepath);
+        return contentCache().getOrLoad(contentKey, loader).map(ContentCache.CachedContent::toResource);
+    }
+
+    /**
+     * Fetches the configured file at each execution of its <code>fetchCron</code>, spread over the jitter window and coalesced with the
+     * fetches of the same repository and ref, until the returned schedule is cancelled.
+     */
+    public GitHubFetchScheduler.ScheduledFetch schedule(Handler<AsyncResult<Resource>> handler) {
+        return GitHubFetchScheduler.get(vertx, scheduleJitterWindow, scheduleCoalesceWindow).schedule(this, handler);
+    }
+
+    /**
+     * Drops the cached content of the configured file, so that the next fetch downloads it again.
+     */
+    public void invalidateCache() {
+        contentCache().invalidatePrefix(getFetchUrl(gitHubFetcherConfiguration.getFilepath()));
+        refResolver().invalidate(refKey(ref()));
+    }
+
+    private String contentKey(String filepath) {
+        return CacheKeys.withCredentials(
+            getFetchUrl(filepath) + (gitHubFetcherConfiguration.isRawContent() ? "#raw" : ""),
+            authorizationHeader()
+        );
+    }
+
+    private Future<ContentCache.CachedContent> loadContent(String filepath) {
+        return resolveContentRef().compose(ref -> loadContent(filepath, ref));
+    }
+
+    private Future<ContentCache.CachedContent> loadContent(String filepath, String ref) {
+        final String url = getFetchUrl(filepath, ref);
+        return this.request(url, VERSION_HEADER, isImmutable(ref), this::readContents).compose(contents -> {
+            if (contents == null) {
+                return Future.succeededFuture(new ContentCache.CachedContent((byte[]) null, null));
+            }
+
+            final Map<String, Object> metadata = contents.metadata();
+            if (metadata.containsKey("html_url") && !Objects.equals(ref, gitHubFetcherConfiguration.getBranchOrTag())) {
+                // The page links to the configured branch or tag, not to the commit it was resolved to
+                metadata.put("html_url", getHtmlUrl(filepath));
             }
             final Object htmlUrl = metadata.get("html_url");
             if (htmlUrl != null) {
                 metadata.put(EDIT_URL_PROPERTY_KEY, String.valueOf(htmlUrl).replace("blob", "edit"));
             }
             metadata.put(PROVIDER_NAME_PROPERTY_KEY, "GitHub");
-            resource.setMetadata(metadata);
+
+            final Object sha = metadata.get("sha");
+            // Files bigger than 1MB are listed without their content by the contents API, their blob is downloaded once whatever the ref
+            if (!NO_ENCODING.equals(metadata.get("encoding"))) {
+                return Future.succeededFuture(new ContentCache.CachedContent(contents.content(), metadata));
+            }
+            if (metadata.get("size") instanceof Number size && maxResponseSize > 0 && size.longValue() > maxResponseSize) {
+                // Checked before the download, the size of the file is given along with its metadata
+                metrics().countRejected(metricTags(githubHost()), "size");
+                return Future.failedFuture(tooLarge("GitHub file '" + filepath + "'", size.longValue()));
+            }
+            if (BlobStore.isSha(sha) && !isSpooled(metadata.get("size"))) {
+                return blobStore()
+                    .getOrLoad((String) sha, () ->
+                        this.request(getBlobUrl((String) sha), BLOB_RAW_MEDIA_TYPE, response -> response.body().getBytes())
+                    )
+                    .map(bytes -> new ContentCache.CachedContent(bytes, metadata));
+            }
+            // Blobs too large to be held in memory are downloaded to a temporary file each time
+            final String contentUrl = BlobStore.isSha(sha) ? getBlobUrl((String) sha) : url;
+            final String accept = BlobStore.isSha(sha) ? BLOB_RAW_MEDIA_TYPE : RAW_MEDIA_TYPE;
+            return this.download(contentUrl, accept, isImmutable(ref), response -> {
+                if (response.stale()) {
+                    metadata.put(STALE_PROPERTY_KEY, true);
+                }
+                return response.isSpooled()
+                    ? new ContentCache.CachedContent(response.spooled(), metadata)
+                    : new ContentCache.CachedContent(response.body().getBytes(), metadata);
+            });
+        });
+    }
+
+    private boolean isSpooled(Object size) {
+        return spoolThreshold > 0 && size instanceof Number number && number.longValue() > spoolThreshold;
+    }
+
+    private GitHubContentsReader.Contents readContents(GitHubResponse response) throws IOException {
+        final GitHubContentsReader.Contents contents = readers().contents().read(response.bodyAsStream());
+        if (response.stale()) {
+            contents.metadata().put(STALE_PROPERTY_KEY, true);
+        }
+        // Read on a worker thread, where the content can be hashed before being stored
+        if (contents.content() != null) {
+            blobStore().put(String.valueOf(contents.metadata().get("sha")), contents.content());
+        }
+        return contents;
+    }
+
+    /**
+     * Downloads the file as is, without the base64 and JSON envelope of the contents API. The metadata GitHub would have sent along are
+     * rebuilt from the configuration, the blob SHA being taken from the <code>ETag</code> of the response.
+     */
+    private Future<ContentCache.CachedContent> loadRawContent(String filepath) {
+        final Map<String, Object> metadata = fileMetadata(filepath);
+
+        return resolveContentRef()
+            .compose(ref -> this.download(getFetchUrl(filepath, ref), RAW_MEDIA_TYPE, isImmutable(ref), response -> {
+                final String sha = blobShaFromEtag(response.etag());
+                if (sha != null) {
+                    metadata.put("sha", sha);
+                }
+                if (response.stale()) {
+                    metadata.put(STALE_PROPERTY_KEY, true);
+                }
+                if (response.isSpooled()) {
+                    metadata.put("size", response.spooled().length());
+                    return new ContentCache.CachedContent(response.spooled(), metadata);
+                }
+                final byte[] content = response.body().getBytes();
+                if (sha != null) {
+                    blobStore().put(sha, content);
+                }
+                metadata.put("size", content.length);
+                return new ContentCache.CachedContent(content, metadata);
+            }))
+            .map(content -> {
+                if (content == null) {
+                    metadata.put("size", 0);
+                    return new ContentCache.CachedContent((byte[]) null, metadata);
+                }
+                return content;
+            });
+    }
+
+    /**
+     * Metadata of a file which has not been fetched through the contents API, mimicking the fields it would have returned.
+     */
+    private Map<String, Object> fileMetadata(String filepath) {
+        final String path = normalizeFilepath(filepath);
+        final String htmlUrl = getHtmlUrl(path);
+        final Map<String, Object> metadata = new HashMap<>();
+        metadata.put("path", path);
+        metadata.put("name", path.substring(path.lastIndexOf('/') + 1));
+        metadata.put("type", "file");
+        metadata.put("url", getFetchUrl(path));
+        metadata.put("html_url", htmlUrl);
+        metadata.put(EDIT_URL_PROPERTY_KEY, htmlUrl.replace("/blob/", "/edit/"));
+        metadata.put(PROVIDER_NAME_PROPERTY_KEY, "GitHub");
+        return metadata;
+    }
+
+    private static String blobShaFromEtag(String etag) {
+        if (etag == null) {
+            return null;
+        }
+        final String sha = etag.replaceFirst("^W/", "").replace("\"", "");
+        return BLOB_SHA_PATTERN.matcher(sha).matches() ? sha : null;
+    }
+
+    /**
+     * Fetches several files of the configured repository and ref at once. Paths which do not exist are absent from the result.
+     *
+     * Files are resolved in chunks through the GraphQL API when a personal access token is configured, and through bounded parallel
+     * calls to the contents API otherwise, or when GraphQL is not available (older GitHub Enterprise).
+     */
+    public Map<String, Resource> fetchAll(List<String> paths) throws FetcherException {
+        return await(fetchAllAsync(paths));
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchAll(List)}.
+     */
+    public Future<Map<String, Resource>> fetchAllAsync(List<String> paths) {
+        return operation("fetchAll", () -> fetchFiles(paths));
+    }
+
+    private Future<Map<String, Resource>> fetchFiles(List<String> paths) {
+        try {
+            checkRequiredFields(false);
+        } catch (FetcherException e) {
+            return Future.failedFuture(e);
+        }
+        if (paths.isEmpty()) {
+            return Future.succeededFuture(Map.of());
+        }
+
+        final String token = gitHubFetcherConfiguration.getPersonalAccessToken();
+        if (token == null || token.isBlank() || gitHubFetcherConfiguration.isRawContent()) {
+            return fetchAllWithRest(paths);
+        }
+
+        final List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i += batchChunkSize) {
+            chunks.add(paths.subList(i, Math.min(i + batchChunkSize, paths.size())));
+        }
+        return Futures.mapBounded(chunks, batchParallelism, chunk -> fetchChunkWithGraphql(chunk, "Bearer " + token))
+            .map(resourcesByChunk -> {
+                final Map<String, Resource> resources = new LinkedHashMap<>();
+                resourcesByChunk.values().forEach(resources::putAll);
+                return resources;
+            })
+            .recover(throwable -> {
+                if (throwable instanceof ResourceNotFoundException) {
+                    log.debug("GitHub GraphQL API is not available at {}, fetching files one by one", getGraphqlUrl());
+                    return fetchAllWithRest(paths);
+                }
+                return Future.failedFuture(throwable);
+            });
+    }
+
+    private Future<Map<String, Resource>> fetchChunkWithGraphql(List<String> paths, String authorization) {
+        if (blobStore().isEmpty()) {
+            return queryBlobs(paths, authorization, true).compose(blobs -> toResources(paths, blobs));
+        }
+
+        // Only the SHA of the blobs is resolved first, the content of the blobs already stored is not downloaded again
+        return queryBlobs(paths, authorization, false).compose(ids ->
+            Futures.mapBounded(paths, batchParallelism, path -> {
+                final BlobsQuery.Blob id = ids == null ? null : ids.get(normalizeFilepath(path));
+                return id == null ? Future.<byte[]>succeededFuture(null) : blobStore().get(id.oid());
+            }).compose(stored -> {
+                final List<String> unknown = paths
+                    .stream()
+                    .filter(path -> stored.get(path) == null && ids != null && ids.containsKey(normalizeFilepath(path)))
+                    .toList();
+                final Future<Map<String, Resource>> downloaded = unknown.isEmpty()
+                    ? Future.succeededFuture(Map.of())
+                    : queryBlobs(unknown, authorization, true).compose(blobs -> toResources(unknown, blobs));
+                return downloaded.map(downloadedResources -> {
+                    final Map<String, Resource> resources = new LinkedHashMap<>();
+                    for (String path : paths) {
+                        final byte[] content = stored.get(path);
+                        if (content != null) {
+                            resources.put(path, blobResource(path, ids.get(normalizeFilepath(path)), content));
+                        } else if (downloadedResources.containsKey(path)) {
+                            resources.put(path, downloadedResources.get(path));
+                        }
+                    }
+                    return resources;
+                });
+            })
+        );
+    }
+
+    /**
+     * @param withText <code>false</code> to only resolve the SHA of the blobs
+     * @return the blobs found, by path
+     */
+    private Future<Map<String, BlobsQuery.Blob>> queryBlobs(List<String> paths, String authorization, boolean withText) {
+        final String ref = gitHubFetcherConfiguration.getBranchOrTag() != null && !gitHubFetcherConfiguration.getBranchOrTag().isEmpty()
+            ? gitHubFetcherConfiguration.getBranchOrTag()
+            : "HEAD";
+        final BlobsQuery query = new BlobsQuery(
+            gitHubFetcherConfiguration.getOwner(),
+            gitHubFetcherConfiguration.getRepository(),
+            ref,
+            paths.stream().map(GitHubFetcher::normalizeFilepath).toList(),
+            withText
+        );
+
+        final Buffer body;
+        try {
+            body = query.toRequestBody(mapper);
+        } catch (JsonProcessingException e) {
+            return Future.failedFuture(e);
+        }
+
+        final BlobStore blobStore = blobStore();
+        final ResponseReader<Map<String, BlobsQuery.Blob>> reader = response -> {
+            final Map<String, BlobsQuery.Blob> blobs = query.read(readers().readBlobs(response.bodyAsStream()));
+            // Read on a worker thread, where the contents can be hashed before being stored
+            blobs
+                .values()
+                .stream()
+                .filter(blob -> !blob.binary() && !blob.truncated() && blob.text() != null)
+                .forEach(blob -> blobStore.put(blob.oid(), blob.text().getBytes(StandardCharsets.UTF_8)));
+            return blobs;
+        };
+        return read(postContent(getGraphqlUrl(), authorization, body), reader);
+    }
+
+    private Future<Map<String, Resource>> toResources(List<String> paths, Map<String, BlobsQuery.Blob> blobs) {
+        final Map<String, Resource> resources = new LinkedHashMap<>();
+        final List<String> remaining = new ArrayList<>();
+        for (String path : paths) {
+            final BlobsQuery.Blob blob = blobs == null ? null : blobs.get(normalizeFilepath(path));
+            if (blob == null) {
+                continue;
+            }
+            // Binary and large files are not returned as text by GraphQL
+            if (blob.binary() || blob.truncated() || blob.text() == null) {
+                remaining.add(path);
+                continue;
+            }
+            resources.put(path, blobResource(path, blob, blob.text().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        if (remaining.isEmpty()) {
+            return Future.succeededFuture(resources);
         }
-        return resource;
+        return fetchAllWithRest(remaining).map(restResources -> {
+            resources.putAll(restResources);
+            return resources;
+        });
+    }
+
+    /**
+     * The metadata of a file fetched through GraphQL are those the contents API would have returned for it, along with the commit
+     * {@link #fetchIfChanged(Map)} compares, so that files fetched together can be checked for changes afterwards.
+     */
+    private Resource blobResource(String path, BlobsQuery.Blob blob, byte[] content) {
+        final Map<String, Object> metadata = fileMetadata(path);
+        metadata.put("sha", blob.oid());
+        metadata.put("size", blob.byteSize());
+        metadata.put("encoding", "base64");
+        if (blob.lastCommitOid() != null) {
+            metadata.put(COMMIT_SHA_PROPERTY_KEY, blob.lastCommitOid());
+        }
+        return new ContentCache.CachedContent(content, metadata).toResource();
+    }
+
+    private Future<Map<String, Resource>> fetchAllWithRest(List<String> paths) {
+        return Futures.mapBounded(paths, batchParallelism, path ->
+            fetchFile(path)
+                .map(Optional::of)
+                .recover(throwable -> {
+                    if (throwable instanceof ResourceNotFoundException) {
+                        return Future.succeededFuture(Optional.empty());
+                    }
+                    return Future.failedFuture(throwable);
+                })
+        ).map(resourcesByPath -> {
+            final Map<String, Resource> resources = new LinkedHashMap<>();
+            resourcesByPath.forEach((path, resource) -> resource.ifPresent(found -> resources.put(path, found)));
+            return resources;
+        });
     }
 
     @Override
     public String[] files() throws FetcherException {
-        checkRequiredFields(false);
+        return await(filesAsync());
+    }
+
+    /**
+     * Non-blocking variant of {@link #files()}: no thread is parked while GitHub is called.
+     */
+    public Future<String[]> filesAsync() {
+        return operation("files", this::listFiles);
+    }
+
+    private Future<String[]> listFiles() {
+        try {
+            checkRequiredFields(false);
+        } catch (FetcherException e) {
+            return Future.failedFuture(e);
+        }
         if ((gitHubFetcherConfiguration.getFilepath() == null || gitHubFetcherConfiguration.getFilepath().isEmpty())) {
             gitHubFetcherConfiguration.setFilepath("/");
         }
-        JsonNode jsonNode = this.request(getTreeUrl());
-        List<String> result = new ArrayList<>();
-        if (jsonNode != null) {
-            JsonNode truncated = jsonNode.get("truncated");
-            if (truncated != null && !truncated.asBoolean(false)) {
-                JsonNode rawTree = jsonNode.get("tree");
-                if (rawTree != null && rawTree.isArray()) {
-                    String filepath = normalizeFilepath(gitHubFetcherConfiguration.getFilepath());
-                    ArrayNode tree = (ArrayNode) rawTree;
-                    Iterator<JsonNode> elements = tree.elements();
-                    while (elements.hasNext()) {
-                        JsonNode elt = elements.next();
-                        String type = elt.get("type").asText();
-                        String path = elt.get("path").asText();
-                        if ("blob".equals(type) && (filepath.isEmpty() || path.startsWith(filepath))) {
-                            int lastIndexOfDot = path.lastIndexOf('.');
-                            if (lastIndexOfDot > 0) {
-                                result.add("/" + path);
-                            }
-                        }
-                    }
+        final String filepath = normalizeFilepath(gitHubFetcherConfiguration.getFilepath());
+        return resolveRef(ref()).compose(ref -> listFiles(filepath, ref));
+    }
+
+    /**
+     * Once the files have been listed at a commit, the next listing only applies the changes between this commit and the new head, as
+     * reported by the compare API, instead of scanning the whole tree again. The tree is scanned when the ref cannot be resolved to a
+     * commit, when the previous commit is not an ancestor of the new head anymore, or when the diff is too large to be listed.
+     */
+    private Future<String[]> listFiles(String filepath, String ref) {
+        if (!incrementalListingEnabled || !RefResolver.isCommitSha(ref)) {
+            return scanFiles(filepath, ref);
+        }
+        final String key = CacheKeys.withCredentials(getTreeUrl(ref(), true) + "&path=" + filepath, authorizationHeader());
+        final FileListingCache.Listing last = fileListings().get(key);
+        final Future<String[]> listing;
+        if (last == null) {
+            listing = scanFiles(filepath, ref);
+        } else if (last.commit().equals(ref)) {
+            listing = Future.succeededFuture(last.files().clone());
+        } else {
+            listing = listChanges(filepath, last, ref);
+        }
+        return listing.onSuccess(files -> fileListings().put(key, ref, files));
+    }
+
+    private Future<String[]> listChanges(String filepath, FileListingCache.Listing last, String head) {
+        return this.request(getCompareUrl(last.commit(), head), VERSION_HEADER, true, response ->
+            readers().readComparison(response.bodyAsStream())
+        )
+            .compose(comparison -> {
+                final String status = comparison == null ? null : comparison.status();
+                if (
+                    !("ahead".equals(status) || "identical".equals(status)) ||
+                    comparison.files() == null ||
+                    comparison.files().size() >= Math.min(incrementalListingMaxChanges, COMPARE_MAX_FILES)
+                ) {
+                    log.debug("Changes since GitHub commit {} cannot be applied ({}), scanning the tree", last.commit(), status);
+                    return scanFiles(filepath, head);
                 }
-            } else {
-                throw new FetcherException("Too many tree elements to retrieve.", null);
+                return Future.succeededFuture(applyChanges(last.files(), comparison.files(), filepath));
+            })
+            .recover(throwable -> {
+                if (throwable instanceof RateLimitExceededException || throwable instanceof CircuitBreakerOpenException) {
+                    return Future.failedFuture(throwable);
+                }
+                // The previous commit may have been dropped by a force push
+                log.debug("Unable to compare GitHub commit {} to {}, scanning the tree: {}", last.commit(), head, throwable.getMessage());
+                return scanFiles(filepath, head);
+            });
+    }
+
+    private static String[] applyChanges(String[] files, List<GitHubReaders.ChangedFile> changes, String filepath) {
+        final Set<String> result = new TreeSet<>(Arrays.asList(files));
+        for (GitHubReaders.ChangedFile change : changes) {
+            if ("removed".equals(change.status())) {
+                result.remove("/" + change.filename());
+                continue;
+            }
+            if ("renamed".equals(change.status()) && change.previousFilename() != null) {
+                result.remove("/" + change.previousFilename());
+            }
+            if (change.filename() != null && isListed(change.filename(), filepath)) {
+                result.add("/" + change.filename());
             }
         }
         return result.toArray(new String[0]);
     }
 
+    private Future<String[]> scanFiles(String filepath, String ref) {
+        return this.requestTree(ref, true, path -> isListed(path, filepath), path -> false).compose(tree -> {
+            if (tree == null || Boolean.FALSE.equals(tree.truncated())) {
+                final List<String> result = tree == null ? List.of() : tree.blobs();
+                return Future.succeededFuture(sorted(result.stream().map(path -> "/" + path)));
+            } else if (tree.truncated() != null) {
+                log.debug(
+                    "GitHub tree of {}/{} is truncated, walking it level by level",
+                    gitHubFetcherConfiguration.getOwner(),
+                    gitHubFetcherConfiguration.getRepository()
+                );
+                return walkTree(filepath, ref).map(files -> sorted(files.stream()));
+            } else {
+                return Future.failedFuture(new FetcherException("Too many tree elements to retrieve.", null));
+            }
+        });
+    }
+
+    /**
+     * The files are always listed in the order of their paths, whether the tree has been scanned in one go or level by level, or the
+     * listing has been updated from the changes of a push: a recursive tree is returned by GitHub in this same order.
+     */
+    private static String[] sorted(Stream<String> files) {
+        return files.sorted().toArray(String[]::new);
+    }
+
+    /**
+     * Lists the files of a tree too large to be returned by a single recursive call: the tree of the directory holding the configured
+     * <code>filepath</code> is resolved first, then only this subtree is walked, one level at a time, with bounded parallel calls.
+     */
+    private Future<List<String>> walkTree(String filepath, String ref) {
+        // Only complete directory names are resolved, the filepath being matched as a prefix like for the recursive listing
+        final String directory = filepath.substring(0, filepath.lastIndexOf('/') + 1);
+        final String[] segments = directory.isEmpty() ? new String[0] : directory.split("/");
+        return resolveSubtree(new TreeRef(ref, ""), segments, 0).compose(subtree ->
+            walkTreeLevel(List.of(subtree), filepath, new ArrayList<>())
+        );
+    }
+
+    private Future<TreeRef> resolveSubtree(TreeRef tree, String[] segments, int index) {
+        if (index >= segments.length) {
+            return Future.succeededFuture(tree);
+        }
+        return this.requestTree(tree.sha(), false, path -> false, segments[index]::equals).compose(subtree -> {
+            if (subtree == null || subtree.trees().isEmpty()) {
+                return Future.succeededFuture(tree);
+            }
+            final String sha = subtree.trees().get(0).sha();
+            return resolveSubtree(new TreeRef(sha, tree.path() + segments[index] + "/"), segments, index + 1);
+        });
+    }
+
+    private Future<List<String>> walkTreeLevel(List<TreeRef> level, String filepath, List<String> files) {
+        if (level.isEmpty()) {
+            return Future.succeededFuture(files);
+        }
+        return Futures.mapBounded(level, treeWalkParallelism, tree ->
+            this.requestTree(
+                    tree.sha(),
+                    false,
+                    name -> isListed(tree.path() + name, filepath),
+                    name -> {
+                        final String directory = tree.path() + name + "/";
+                        return directory.startsWith(filepath) || filepath.startsWith(directory);
+                    }
+                )
+        ).compose(treesByRef -> {
+            final List<TreeRef> nextLevel = new ArrayList<>();
+            for (Map.Entry<TreeRef, GitHubTreeReader.Tree> tree : treesByRef.entrySet()) {
+                if (tree.getValue() == null) {
+                    continue;
+                }
+                if (Boolean.TRUE.equals(tree.getValue().truncated())) {
+                    return Future.failedFuture(new FetcherException("Too many tree elements to retrieve.", null));
+                }
+                final String directory = tree.getKey().path();
+                tree.getValue().blobs().forEach(name -> files.add("/" + directory + name));
+                tree.getValue().trees().forEach(subtree -> nextLevel.add(new TreeRef(subtree.sha(), directory + subtree.path() + "/")));
+            }
+            return walkTreeLevel(nextLevel, filepath, files);
+        });
+    }
+
+    /**
+     * @param sha SHA of the tree, or the ref for the root tree
+     * @param path path of the tree in the repository, with a trailing slash, empty for the root tree
+     */
+    private record TreeRef(String sha, String path) {}
+
+    /**
+     * Whether a file of the repository is part of the listing of the configured <code>filepath</code>: only files with an extension are.
+     */
+    private static boolean isListed(String path, String filepath) {
+        return RepositoryPaths.isCovered(path, filepath) && path.lastIndexOf('.') > 0;
+    }
+
+    /**
+     * Downloads the archive of the configured ref in one go and extracts the files {@link #files()} would list, along with their content.
+     *
+     * The gzipped tarball is decompressed and filtered while it is being received, and only the matching files are kept in memory, so
+     * that importing a large documentation tree costs a single request whatever the size of the repository.
+     *
+     * @return the resources by path, formatted as in {@link #files()}
+     */
+    public Map<String, Resource> fetchArchive() throws FetcherException {
+        return await(fetchArchiveAsync());
+    }
+
+    /**
+     * Non-blocking variant of {@link #fetchArchive()}.
+     */
+    public Future<Map<String, Resource>> fetchArchiveAsync() {
+        return operation("fetchArchive", this::fetchAndExtractArchive);
+    }
+
+    private Future<Map<String, Resource>> fetchAndExtractArchive() {
+        try {
+            checkRequiredFields(false);
+        } catch (FetcherException e) {
+            return Future.failedFuture(e);
+        }
+
+        final String url = getArchiveUrl();
+        final URI requestUri;
+        try {
+            requestUri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return Future.failedFuture(e);
+        }
+        final RequestOptions reqOptions = requestOptions(requestUri, HttpMethod.GET, VERSION_HEADER);
+        final String authorization = authorizationHeader();
+        if (authorization != null) {
+            reqOptions.putHeader("Authorization", authorization);
+        }
+
+        return send(requestUri, reqOptions, null)
+            .compose(response -> {
+                if (response.statusCode() != HttpStatusCode.OK_200) {
+                    return handleFailure(url, response);
+                }
+                final long contentLength = contentLength(response);
+                if (maxResponseSize > 0 && contentLength > maxResponseSize) {
+                    return reject(url, response, metricTags(requestUri.getHost()), "content-length", contentLength);
+                }
+                final ResponseInputStream body = new ResponseInputStream(response, httpClientTimeout, ARCHIVE_MAX_BUFFERED_CHUNKS);
+                return vertx.executeBlocking(() -> extractArchive(body), false);
+            })
+            .recover(throwable -> {
+                if (
+                    throwable instanceof ResourceNotFoundException ||
+                    throwable instanceof RateLimitExceededException ||
+                    throwable instanceof CircuitBreakerOpenException ||
+                    throwable instanceof ResponseTooLargeException
+                ) {
+                    return Future.failedFuture(throwable);
+                }
+
+                log.error(throwable.getMessage(), throwable);
+                return Future.failedFuture(
+                    new FetcherException("Unable to fetch GitHub archive (" + throwable.getMessage() + ")", throwable)
+                );
+            });
+    }
+
+    private Map<String, Resource> extractArchive(InputStream body) throws IOException, FetcherException {
+        final String filepath = normalizeFilepath(gitHubFetcherConfiguration.getFilepath());
+        final Map<String, Resource> resources = new LinkedHashMap<>();
+        long extracted = 0;
+        try (InputStream in = body; TarReader tar = new TarReader(new GZIPInputStream(in, ARCHIVE_READ_BUFFER_SIZE))) {
+            TarReader.Entry entry;
+            while ((entry = tar.next()) != null) {
+                // Every entry is stored under a root directory named after the repository and the commit
+                final int rootEnd = entry.path().indexOf('/');
+                if (!entry.file() || rootEnd < 0) {
+                    continue;
+                }
+                final String path = entry.path().substring(rootEnd + 1);
+                if (isListed(path, filepath)) {
+                    if (maxResponseSize > 0 && entry.size() > maxResponseSize) {
+                        metrics().countRejected(metricTags(githubHost()), "size");
+                        throw tooLarge("GitHub file '" + path + "'", entry.size());
+                    }
+                    // The files kept are held in memory together, their total is bounded as a single response would be
+                    extracted += entry.size();
+                    if (maxResponseSize > 0 && extracted > maxResponseSize) {
+                        metrics().countRejected(metricTags(githubHost()), "size");
+                        throw tooLarge("GitHub archive '" + getArchiveUrl() + "'", extracted);
+                    }
+                    final Map<String, Object> metadata = fileMetadata(path);
+                    metadata.put("size", entry.size());
+                    resources.put("/" + path, new ContentCache.CachedContent(tar.readContent(), metadata).toResource());
+                }
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * Blocks the calling thread until the given future completes, unwrapping its failure.
+     */
+    private static <T> T await(Future<T> future) throws FetcherException {
+        try {
+            return future.toCompletionStage().toCompletableFuture().join();
+        } catch (CompletionException ex) {
+            final Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof FetcherException fetcherException) {
+                throw fetcherException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new FetcherException(cause.getMessage(), cause);
+        }
+    }
+
     private void checkRequiredFields(boolean checkFilepath) throws FetcherException {
         if (
             gitHubFetcherConfiguration.getGithubUrl() == null ||
@@ -178,7 +1041,11 @@ public class GitHubFetcher implements FilesFetcher {
         }
     }
 
-    private String getFetchUrl() {
+    private String getFetchUrl(String filepath) {
+        return getFetchUrl(filepath, gitHubFetcherConfiguration.getBranchOrTag());
+    }
+
+    private String getFetchUrl(String filepath, String ref) {
         return (
             gitHubFetcherConfiguration.getGithubUrl() +
             "/repos" +
@@ -187,16 +1054,102 @@ public class GitHubFetcher implements FilesFetcher {
             "/" +
             gitHubFetcherConfiguration.getRepository() +
             "/contents/" +
-            normalizeFilepath(gitHubFetcherConfiguration.getFilepath()) +
+            normalizeFilepath(filepath) +
+            (ref != null && !ref.isEmpty() ? ("?ref=" + ref) : "")
+        );
+    }
+
+    private String getCompareUrl(String base, String head) {
+        return (
+            gitHubFetcherConfiguration.getGithubUrl() +
+            "/repos" +
+            "/" +
+            gitHubFetcherConfiguration.getOwner() +
+            "/" +
+            gitHubFetcherConfiguration.getRepository() +
+            "/compare/" +
+            base +
+            "..." +
+            head +
+            // The changed files are all listed on the first page, whatever the number of commits per page
+            "?per_page=1"
+        );
+    }
+
+    private String getCommitShaUrl(String ref) {
+        return (
+            gitHubFetcherConfiguration.getGithubUrl() +
+            "/repos" +
+            "/" +
+            gitHubFetcherConfiguration.getOwner() +
+            "/" +
+            gitHubFetcherConfiguration.getRepository() +
+            "/commits/" +
+            ref
+        );
+    }
+
+    /**
+     * URL of the last commit touching the file on the configured ref.
+     */
+    private String getCommitsUrl(String filepath) {
+        return (
+            gitHubFetcherConfiguration.getGithubUrl() +
+            "/repos" +
+            "/" +
+            gitHubFetcherConfiguration.getOwner() +
+            "/" +
+            gitHubFetcherConfiguration.getRepository() +
+            "/commits?path=" +
+            normalizeFilepath(filepath) +
             (gitHubFetcherConfiguration.getBranchOrTag() != null && !gitHubFetcherConfiguration.getBranchOrTag().isEmpty()
-                    ? ("?ref=" + gitHubFetcherConfiguration.getBranchOrTag())
-                    : "")
+                    ? ("&sha=" + gitHubFetcherConfiguration.getBranchOrTag())
+                    : "") +
+            "&per_page=1"
         );
     }
 
-    /** Accepts both filepath forms (with or without leading slash); never persisted back to the configuration. */
+    /**
+     * Builds the URL of the file on the GitHub web UI from the API URL: <code>api.github.com</code> for github.com, and
+     * <code>https://host/api/v3</code> for GitHub Enterprise.
+     */
+    private String getHtmlUrl(String filepath) {
+        final URI apiUri = URI.create(gitHubFetcherConfiguration.getGithubUrl());
+        String webUrl = GITHUB_API_HOST.equalsIgnoreCase(apiUri.getHost())
+            ? apiUri.getScheme() + "://github.com"
+            : gitHubFetcherConfiguration.getGithubUrl().replaceAll("/+$", "");
+        if (webUrl.endsWith(GITHUB_ENTERPRISE_API_PATH)) {
+            webUrl = webUrl.substring(0, webUrl.length() - GITHUB_ENTERPRISE_API_PATH.length());
+        }
+        return (
+            webUrl +
+            "/" +
+            gitHubFetcherConfiguration.getOwner() +
+            "/" +
+            gitHubFetcherConfiguration.getRepository() +
+            "/blob/" +
+            (gitHubFetcherConfiguration.getBranchOrTag() != null && !gitHubFetcherConfiguration.getBranchOrTag().isEmpty()
+                    ? gitHubFetcherConfiguration.getBranchOrTag()
+                    : "master") +
+            "/" +
+            normalizeFilepath(filepath)
+        );
+    }
+
+    /**
+     * GraphQL endpoint: <code>https://api.github.com/graphql</code> for github.com, <code>https://host/api/graphql</code> for GitHub
+     * Enterprise.
+     */
+    private String getGraphqlUrl() {
+        final String apiUrl = gitHubFetcherConfiguration.getGithubUrl().replaceAll("/+$", "");
+        if (apiUrl.endsWith(GITHUB_ENTERPRISE_API_PATH)) {
+            return apiUrl.substring(0, apiUrl.length() - GITHUB_ENTERPRISE_API_PATH.length()) + "/api/graphql";
+        }
+        return apiUrl + "/graphql";
+    }
+
     private static String normalizeFilepath(String filepath) {
-        return filepath == null ? "" : filepath.trim().replaceAll("^/+", "");
+        return RepositoryPaths.normalize(filepath);
     }
 
     private String buildNotFoundMessage(String url) {
@@ -217,7 +1170,7 @@ public class GitHubFetcher implements FilesFetcher {
         );
     }
 
-    private String getTreeUrl() {
+    private String getArchiveUrl() {
         return (
             gitHubFetcherConfiguration.getGithubUrl() +
             "/repos" +
@@ -225,122 +1178,680 @@ public class GitHubFetcher implements FilesFetcher {
             gitHubFetcherConfiguration.getOwner() +
             "/" +
             gitHubFetcherConfiguration.getRepository() +
-            "/git/trees/" +
+            "/tarball" +
             (gitHubFetcherConfiguration.getBranchOrTag() != null && !gitHubFetcherConfiguration.getBranchOrTag().isEmpty()
-                    ? (gitHubFetcherConfiguration.getBranchOrTag())
-                    : "master") +
-            "?recursive=1"
+                    ? ("/" + gitHubFetcherConfiguration.getBranchOrTag())
+                    : "")
+        );
+    }
+
+    private String getBlobUrl(String sha) {
+        return (
+            gitHubFetcherConfiguration.getGithubUrl() +
+            "/repos" +
+            "/" +
+            gitHubFetcherConfiguration.getOwner() +
+            "/" +
+            gitHubFetcherConfiguration.getRepository() +
+            "/git/blobs/" +
+            sha
         );
     }
 
-    private JsonNode request(String url) throws FetcherException {
+    private String getTreeUrl(String treeIsh, boolean recursive) {
+        return (
+            gitHubFetcherConfiguration.getGithubUrl() +
+            "/repos" +
+            "/" +
+            gitHubFetcherConfiguration.getOwner() +
+            "/" +
+            gitHubFetcherConfiguration.getRepository() +
+            "/git/trees/" +
+            treeIsh +
+            (recursive ? "?recursive=1" : "")
+        );
+    }
+
+    /**
+     * Configured ref, defaulting to <code>master</code>.
+     */
+    private String ref() {
+        return gitHubFetcherConfiguration.getBranchOrTag() != null && !gitHubFetcherConfiguration.getBranchOrTag().isEmpty()
+            ? gitHubFetcherConfiguration.getBranchOrTag()
+            : "master";
+    }
+
+    private Future<GitHubTreeReader.Tree> requestTree(
+        String treeIsh,
+        boolean recursive,
+        Predicate<String> blobFilter,
+        Predicate<String> treeFilter
+    ) {
+        return request(getTreeUrl(treeIsh, recursive), VERSION_HEADER, isImmutable(treeIsh), response ->
+            readers().tree().read(response.bodyAsStream(), blobFilter, treeFilter)
+        );
+    }
+
+    /**
+     * Resolves a branch or tag to the SHA of its head commit, so that trees and contents are requested at immutable URLs. The ref is used
+     * as is when it already is a commit SHA, when the resolution is disabled, or when GitHub cannot resolve it.
+     */
+    private Future<String> resolveRef(String ref) {
+        if (refResolverTtl <= 0 || RefResolver.isCommitSha(ref)) {
+            return Future.succeededFuture(ref);
+        }
+        return refResolver()
+            .resolve(refKey(ref), () ->
+                this.request(getCommitShaUrl(ref), SHA_MEDIA_TYPE, response -> response.body().toString(StandardCharsets.US_ASCII).trim())
+                    .map(sha -> RefResolver.isCommitSha(sha) ? sha : ref)
+                    .recover(throwable -> {
+                        // A ref GitHub does not know is not looked up again before the TTL, the next request will fail on its own
+                        if (throwable instanceof ResourceNotFoundException) {
+                            return Future.succeededFuture(ref);
+                        }
+                        return Future.failedFuture(throwable);
+                    })
+            )
+            .recover(throwable -> {
+                log.debug("Unable to resolve GitHub ref '{}', using it as is: {}", ref, throwable.getMessage());
+                return Future.succeededFuture(ref);
+            });
+    }
+
+    /**
+     * The contents API falls back to the default branch when no ref is configured, which is kept as is.
+     */
+    private Future<String> resolveContentRef() {
+        final String ref = gitHubFetcherConfiguration.getBranchOrTag();
+        return ref == null || ref.isEmpty() ? Future.succeededFuture(ref) : resolveRef(ref);
+    }
+
+    private String refKey(String ref) {
+        return CacheKeys.withCredentials(getCommitShaUrl(ref), authorizationHeader());
+    }
+
+    private static boolean isImmutable(String ref) {
+        return RefResolver.isCommitSha(ref);
+    }
+
+    /**
+     * Calls GitHub and reads the response on a worker thread, decoding large payloads being too expensive for the event loop.
+     */
+    private <T> Future<T> request(String url, String accept, ResponseReader<T> responseReader) {
+        return request(url, accept, false, responseReader);
+    }
+
+    /**
+     * @param immutable whether the URL designates an immutable object, a response already received being served without asking GitHub
+     */
+    private <T> Future<T> request(String url, String accept, boolean immutable, ResponseReader<T> responseReader) {
+        return read(fetchContent(url, accept, immutable, false), responseReader);
+    }
+
+    /**
+     * Downloads a file as is. A body larger than <code>fetcher.github.spool.threshold</code> is written to a temporary file as it is
+     * received, rather than being aggregated in the heap, and is handed to the reader as a {@link SpooledBody}.
+     */
+    private <T> Future<T> download(String url, String accept, boolean immutable, ResponseReader<T> responseReader) {
+        return read(fetchContent(url, accept, immutable, true), responseReader);
+    }
+
+    private <T> Future<T> read(Future<GitHubResponse> githubResponse, ResponseReader<T> responseReader) {
+        return githubResponse
+            .compose(response -> {
+                if (response.isEmpty()) {
+                    if (response.isSpooled()) {
+                        response.spooled().release();
+                    }
+                    log.warn("Something goes wrong, GitHub responds with a status 200 but the content is empty.");
+                    return Future.<T>succeededFuture(null);
+                }
+                final Tags tags = metricTags(githubHost());
+                return vertx.executeBlocking(
+                    () -> {
+                        final long start = System.nanoTime();
+                        final T result = responseReader.read(response);
+                        metrics().recordPhase("decode", tags, start);
+                        return result;
+                    },
+                    false
+                );
+            })
+            .recover(throwable -> {
+                if (
+                    throwable instanceof ResourceNotFoundException ||
+                    throwable instanceof RateLimitExceededException ||
+                    throwable instanceof CircuitBreakerOpenException ||
+                    throwable instanceof ResponseTooLargeException
+                ) {
+                    return Future.failedFuture(throwable);
+                }
+
+                log.error(throwable.getMessage(), throwable);
+                return Future.failedFuture(
+                    new FetcherException("Unable to fetch GitHub content (" + throwable.getMessage() + ")", throwable)
+                );
+            });
+    }
+
+    /**
+     * @param spool whether a large body may be written to a temporary file rather than held in memory
+     */
+    private Future<GitHubResponse> fetchContent(String url, String accept, boolean immutable, boolean spool) {
+        final URI requestUri;
         try {
-            Buffer buffer = fetchContent(url).join();
-            if (buffer == null || buffer.length() == 0) {
-                log.warn("Something goes wrong, GitHub responds with a status 200 but the content is empty.");
-                return null;
-            }
+            requestUri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return Future.failedFuture(e);
+        }
 
-            return new ObjectMapper().readTree(buffer.getBytes());
-        } catch (Exception ex) {
-            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
-            if (cause instanceof ResourceNotFoundException resourceNotFoundException) {
-                throw resourceNotFoundException;
-            }
+        final RequestOptions reqOptions = requestOptions(requestUri, HttpMethod.GET, accept);
+        final String authorization = authorizationHeader();
+        if (authorization != null) {
+            reqOptions.putHeader("Authorization", authorization);
+        }
+
+        // GitHub answers a conditional request with a 304 which is not counted against the rate limit
+        final String cacheKey = ValidatorCache.key(url, accept, authorization);
+        final Supplier<Future<GitHubResponse>> call = () ->
+            validatorCache()
+                .get(cacheKey)
+                .compose(cachedResponse -> {
+                    if (cachedResponse != null && immutable) {
+                        return Future.succeededFuture(new GitHubResponse(cachedResponse.body(), cachedResponse.etag()));
+                    }
+                    if (cachedResponse != null) {
+                        if (cachedResponse.etag() != null) {
+                            reqOptions.putHeader(HttpHeaders.IF_NONE_MATCH, cachedResponse.etag());
+                        }
+                        if (cachedResponse.lastModified() != null) {
+                            reqOptions.putHeader(HttpHeaders.IF_MODIFIED_SINCE, cachedResponse.lastModified());
+                        }
+                    }
 
-            log.error(cause.getMessage(), cause);
-            throw new FetcherException("Unable to fetch GitHub content (" + cause.getMessage() + ")", cause);
+                    return send(requestUri, reqOptions, null)
+                        .compose(response -> handleResponse(url, response, cacheKey, cachedResponse, spool))
+                        .recover(throwable -> {
+                            // While the circuit is open, the last known content is better than no content at all
+                            if (throwable instanceof CircuitBreakerOpenException && cachedResponse != null && circuitBreakerServeStale) {
+                                log.debug("GitHub is unavailable, serving the last known content of '{}'", url);
+                                return Future.succeededFuture(new GitHubResponse(cachedResponse.body(), cachedResponse.etag(), null, true));
+                            }
+                            return Future.failedFuture(throwable);
+                        });
+                });
+        // A spooled body is read by a single caller, concurrent downloads of a same file being collapsed by the content cache instead
+        if (spool) {
+            return call.get();
         }
+        // Identical concurrent requests, keyed by URL, media type and credentials, share a single call to GitHub
+        return singleFlight().execute(cacheKey, call);
     }
 
-    private CompletableFuture<Buffer> fetchContent(String url) throws Exception {
-        Promise<Buffer> promise = Promise.promise();
+    private Future<GitHubResponse> postContent(String url, String authorization, Buffer body) {
+        final URI requestUri;
+        try {
+            requestUri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return Future.failedFuture(e);
+        }
 
-        URI requestUri = URI.create(url);
-        boolean ssl = HTTPS_SCHEME.equalsIgnoreCase(requestUri.getScheme());
+        final RequestOptions reqOptions = requestOptions(requestUri, HttpMethod.POST, VERSION_HEADER)
+            .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+            .putHeader("Authorization", authorization);
 
-        final HttpClientOptions options = new HttpClientOptions()
-            .setSsl(ssl)
-            .setTrustAll(true)
-            .setKeepAlive(false)
-            .setTcpKeepAlive(false)
-            .setConnectTimeout(httpClientTimeout)
-            .setIdleTimeout(httpClientTimeout)
-            .setIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+        return send(requestUri, reqOptions, body).compose(response -> handleResponse(url, response, null, null, false));
+    }
 
-        final PoolOptions poolOptions = new PoolOptions().setHttp1MaxSize(1);
+    /**
+     * Sends a request once the rate limit of its token allows it. A request rejected by a secondary rate limit is replayed once after the
+     * delay announced by GitHub, provided it does not exceed the maximum accepted wait. Transient failures are retried according to the
+     * {@link RetryPolicy}, each exchange going through the circuit breaker of the GitHub host. The waits for the rate limit are left
+     * outside of the circuit breaker, so that throttled requests are not taken for slow calls.
+     */
+    private Future<HttpClientResponse> send(URI requestUri, RequestOptions reqOptions, Buffer body) {
+        final GitHubRateLimiter rateLimiter = rateLimiter();
+        final String budgetKey = GitHubRateLimiter.key(requestUri.getHost(), reqOptions.getHeaders().get("Authorization"));
+        final RetryPolicy retryPolicy = retryPolicy();
+        final String breakerKey = requestUri.getScheme() + "://" + requestUri.getHost() + ":" + port(requestUri);
+        final CircuitBreakerSettings breakerSettings = circuitBreakerSettings();
+        final GitHubRetrier retrier = GitHubRetrier.get(vertx);
+        final GitHubCircuitBreakers circuitBreakers = GitHubCircuitBreakers.get(vertx);
+        final GitHubMetrics metrics = metrics();
+        metrics.bindRateLimiter(requestUri.getHost(), rateLimiter);
+        metrics.bindRetrier(retrier);
+        final Supplier<Future<HttpClientResponse>> exchange;
+        if (circuitBreakerEnabled) {
+            metrics.bindCircuitBreakers(circuitBreakers);
+            exchange = () -> circuitBreakers.execute(breakerKey, breakerSettings, () -> exchange(requestUri, reqOptions, body));
+        } else {
+            exchange = () -> exchange(requestUri, reqOptions, body);
+        }
+        return retrier
+            .execute(retryPolicy, () ->
+                send(requestUri, rateLimiter, budgetKey, exchange, true)
+                    .compose(response -> {
+                        if (!retryPolicy.isRetryable(response.statusCode())) {
+                            return Future.succeededFuture(response);
+                        }
+                        // The body is drained so that the connection can go back to the pool
+                        final RetryableStatusException failure = new RetryableStatusException(
+                            requestUri.toString(),
+                            response.statusCode(),
+                            response.statusMessage()
+                        );
+                        return response.body().transform(ignored -> Future.failedFuture(failure));
+                    })
+            )
+            .recover(throwable -> {
+                if (throwable instanceof RetryableStatusException) {
+                    return Future.failedFuture(new FetcherException(throwable.getMessage(), null));
+                }
+                return Future.failedFuture(throwable);
+            });
+    }
 
-        if (gitHubFetcherConfiguration.isUseSystemProxy()) {
-            ProxyOptions proxyOptions = new ProxyOptions();
-            proxyOptions.setType(ProxyType.valueOf(httpClientProxyType));
-            if (HTTPS_SCHEME.equals(requestUri.getScheme())) {
-                proxyOptions.setHost(httpClientProxyHttpsHost);
-                proxyOptions.setPort(httpClientProxyHttpsPort);
-                proxyOptions.setUsername(httpClientProxyHttpsUsername);
-                proxyOptions.setPassword(httpClientProxyHttpsPassword);
-            } else {
-                proxyOptions.setHost(httpClientProxyHttpHost);
-                proxyOptions.setPort(httpClientProxyHttpPort);
-                proxyOptions.setUsername(httpClientProxyHttpUsername);
-                proxyOptions.setPassword(httpClientProxyHttpPassword);
-            }
-            options.setProxyOptions(proxyOptions);
+    private Future<HttpClientResponse> send(
+        URI requestUri,
+        GitHubRateLimiter rateLimiter,
+        String budgetKey,
+        Supplier<Future<HttpClientResponse>> exchange,
+        boolean replay
+    ) {
+        return rateLimiter
+            .acquire(budgetKey)
+            .compose(ignored -> exchange.get())
+            .compose(response -> {
+                final long retryAfter = rateLimiter.update(budgetKey, response);
+                if (retryAfter < 0) {
+                    return Future.succeededFuture(response);
+                }
+                // The body is drained so that the connection can go back to the pool
+                return response
+                    .body()
+                    .transform(ignored -> {
+                        if (replay && retryAfter <= rateLimiter.maxWait()) {
+                            return send(requestUri, rateLimiter, budgetKey, exchange, false);
+                        }
+                        return Future.failedFuture(
+                            new RateLimitExceededException(
+                                "GitHub rate limit exceeded for '" + requestUri + "', requests are accepted again in " + retryAfter + "ms",
+                                retryAfter
+                            )
+                        );
+                    });
+            });
+    }
+
+    /**
+     * Sends the request and waits for the response headers, timing the connection and the time to first byte.
+     */
+    private Future<HttpClientResponse> exchange(URI requestUri, RequestOptions reqOptions, Buffer body) {
+        final GitHubMetrics metrics = metrics();
+        final Tags tags = metricTags(requestUri.getHost());
+        final long start = System.nanoTime();
+        metrics.requestStarted();
+        final boolean ssl = HTTPS_SCHEME.equalsIgnoreCase(requestUri.getScheme());
+        final GitHubHttpClientRegistry.ClientKey clientKey = new GitHubHttpClientRegistry.ClientKey(
+            ssl,
+            requestUri.getHost(),
+            port(requestUri),
+            proxySettings(ssl),
+            httpClientSettings()
+        );
+        return GitHubHttpClientRegistry.get(vertx)
+            .execute(clientKey, client ->
+                client
+                    .request(reqOptions)
+                    .compose(request -> {
+                        metrics.recordPhase("connect", tags, start);
+                        final long sent = System.nanoTime();
+                        return (body == null ? request.send() : request.send(body)).onSuccess(response ->
+                            metrics.recordPhase("ttfb", tags, sent)
+                        );
+                    })
+            )
+            .onComplete(ar -> {
+                metrics.requestEnded();
+                if (ar.succeeded()) {
+                    metrics.countResponse(tags, ar.result().statusCode());
+                } else {
+                    metrics.countError(tags, ar.cause());
+                }
+            });
+    }
+
+    private RequestOptions requestOptions(URI requestUri, HttpMethod method, String accept) {
+        return new RequestOptions()
+            .setMethod(method)
+            .setPort(port(requestUri))
+            .setHost(requestUri.getHost())
+            .setURI(requestUri.toString())
+            .putHeader(io.gravitee.common.http.HttpHeaders.USER_AGENT, gitHubFetcherConfiguration.getOwner())
+            .putHeader("X-Gravitee-Request-Id", UUID.toString(UUID.random()))
+            .putHeader("Accept", accept)
+            .setTimeout(httpClientTimeout)
+            // Follow redirect since Gitlab may return a 3xx status code
+            .setFollowRedirects(true);
+    }
+
+    private static int port(URI requestUri) {
+        return requestUri.getPort() != -1 ? requestUri.getPort() : (HTTPS_SCHEME.equalsIgnoreCase(requestUri.getScheme()) ? 443 : 80);
+    }
+
+    private String authorizationHeader() {
+        if (
+            gitHubFetcherConfiguration.getUsername() != null &&
+            !gitHubFetcherConfiguration.getUsername().trim().isEmpty() &&
+            gitHubFetcherConfiguration.getPersonalAccessToken() != null &&
+            !gitHubFetcherConfiguration.getPersonalAccessToken().trim().isEmpty()
+        ) {
+            String auth = gitHubFetcherConfiguration.getUsername() + ":" + gitHubFetcherConfiguration.getPersonalAccessToken();
+            return "Basic " + Base64.getEncoder().encodeToString(auth.getBytes());
         }
+        return null;
+    }
 
-        final HttpClient httpClient = vertx.createHttpClient(options, poolOptions);
-        promise.future().onComplete(ar -> httpClient.close());
+    private ContentCache contentCache() {
+        final ContentCache contentCache = ContentCache.get(vertx, contentCacheTtl, contentCacheMaxSize);
+        metrics().bindContentCache(contentCache);
+        return contentCache;
+    }
+
+    private FileListingCache fileListings() {
+        return FileListingCache.get(vertx, incrementalListingMaxEntries);
+    }
 
-        final int port = requestUri.getPort() != -1 ? requestUri.getPort() : (HTTPS_SCHEME.equals(requestUri.getScheme()) ? 443 : 80);
+    private RefResolver refResolver() {
+        return RefResolver.get(vertx, refResolverTtl);
+    }
 
+    private BlobStore blobStore() {
+        final BlobStore blobStore = BlobStore.get(vertx, blobStoreMaxSize, blobStoreDirectory, blobStoreMaxDiskSize);
+        metrics().bindBlobStore(blobStore);
+        return blobStore;
+    }
+
+    private SingleFlight singleFlight() {
+        final SingleFlight singleFlight = SingleFlight.get(vertx, "requests");
+        metrics().bindSingleFlight(singleFlight);
+        return singleFlight;
+    }
+
+    private GitHubMetrics metrics() {
+        return GitHubMetrics.get(vertx);
+    }
+
+    private Tags metricTags(String host) {
+        return metrics().tags(host, gitHubFetcherConfiguration.getOwner(), gitHubFetcherConfiguration.getRepository());
+    }
+
+    private String githubHost() {
         try {
-            final RequestOptions reqOptions = new RequestOptions()
-                .setMethod(HttpMethod.GET)
-                .setPort(port)
-                .setHost(requestUri.getHost())
-                .setURI(requestUri.toString())
-                .putHeader(io.gravitee.common.http.HttpHeaders.USER_AGENT, gitHubFetcherConfiguration.getOwner())
-                .putHeader("X-Gravitee-Request-Id", UUID.toString(UUID.random()))
-                .putHeader("Accept", VERSION_HEADER)
-                .setTimeout(httpClientTimeout)
-                // Follow redirect since Gitlab may return a 3xx status code
-                .setFollowRedirects(true);
-
-            if (
-                gitHubFetcherConfiguration.getUsername() != null &&
-                !gitHubFetcherConfiguration.getUsername().trim().isEmpty() &&
-                gitHubFetcherConfiguration.getPersonalAccessToken() != null &&
-                !gitHubFetcherConfiguration.getPersonalAccessToken().trim().isEmpty()
-            ) {
-                String auth = gitHubFetcherConfiguration.getUsername() + ":" + gitHubFetcherConfiguration.getPersonalAccessToken();
-                reqOptions.putHeader("Authorization", "Basic " + Base64.getEncoder().encodeToString(auth.getBytes()));
+            final String host = URI.create(gitHubFetcherConfiguration.getGithubUrl()).getHost();
+            return host != null ? host : gitHubFetcherConfiguration.getGithubUrl();
+        } catch (IllegalArgumentException e) {
+            return gitHubFetcherConfiguration.getGithubUrl();
+        }
+    }
+
+    /**
+     * Runs a fetcher operation within the node-wide cap on concurrent fetches, timing it.
+     */
+    private <T> Future<T> operation(String name, Supplier<Future<T>> operation) {
+        return metrics().timeOperation(name, metricTags(githubHost()), () -> fetchSemaphore().execute(operation));
+    }
+
+    private GitHubRateLimiter rateLimiter() {
+        return GitHubRateLimiter.get(vertx, rateLimitMaxWait, rateLimitLowWatermark);
+    }
+
+    /**
+     * Node-wide cap on the number of fetches running at once, whatever the page configuration they are made for.
+     */
+    private AsyncSemaphore fetchSemaphore() {
+        return AsyncSemaphore.get(vertx, "fetches", maxConcurrentFetches);
+    }
+
+    private RetryPolicy retryPolicy() {
+        final Set<Integer> statusCodes = new HashSet<>();
+        for (String statusCode : commaSeparated(retryStatusCodes)) {
+            try {
+                statusCodes.add(Integer.valueOf(statusCode));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid status code '{}' of fetcher.github.retry.statusCodes", statusCode);
             }
+        }
+        return new RetryPolicy(
+            retryMaxAttempts,
+            retryInitialDelay,
+            retryMaxDelay,
+            retryDeadline,
+            statusCodes,
+            Set.copyOf(commaSeparated(retryExceptions))
+        );
+    }
 
-            httpClient
-                .request(reqOptions)
-                .compose(HttpClientRequest::send)
-                .compose(response -> handleResponse(url, response))
-                .onSuccess(promise::complete)
-                .onFailure(promise::fail);
-        } catch (Exception ex) {
-            promise.fail(ex);
+    private static List<String> commaSeparated(String value) {
+        if (value == null) {
+            return List.of();
         }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+
+    private CircuitBreakerSettings circuitBreakerSettings() {
+        return new CircuitBreakerSettings(
+            circuitBreakerFailureRateThreshold,
+            circuitBreakerSlowCallRateThreshold,
+            circuitBreakerSlowCallDuration,
+            circuitBreakerWindowSize,
+            circuitBreakerMinimumCalls,
+            circuitBreakerOpenDuration,
+            circuitBreakerHalfOpenProbes
+        );
+    }
 
-        return promise.future().toCompletionStage().toCompletableFuture();
+    private ValidatorCache validatorCache() {
+        return ValidatorCache.get(
+            vertx,
+            validatorCacheMaxEntries,
+            validatorCacheMaxSize,
+            validatorCacheMaxEntrySize,
+            validatorCacheDirectory
+        );
     }
 
-    private Future<Buffer> handleResponse(String url, HttpClientResponse response) {
+    private HttpClientSettings httpClientSettings() {
+        return new HttpClientSettings(
+            httpClientTimeout,
+            httpClientPoolMaxSize,
+            httpClientHttp2Enabled,
+            httpClientHttp2MultiplexingLimit,
+            httpClientPoolKeepAliveTimeout,
+            httpClientPoolIdleClientTimeout
+        );
+    }
+
+    private ProxySettings proxySettings(boolean ssl) {
+        if (!gitHubFetcherConfiguration.isUseSystemProxy()) {
+            return null;
+        }
+        if (ssl) {
+            return new ProxySettings(
+                ProxyType.valueOf(httpClientProxyType),
+                httpClientProxyHttpsHost,
+                httpClientProxyHttpsPort,
+                httpClientProxyHttpsUsername,
+                httpClientProxyHttpsPassword
+            );
+        }
+        return new ProxySettings(
+            ProxyType.valueOf(httpClientProxyType),
+            httpClientProxyHttpHost,
+            httpClientProxyHttpPort,
+            httpClientProxyHttpUsername,
+            httpClientProxyHttpPassword
+        );
+    }
+
+    private Future<GitHubResponse> handleResponse(
+        String url,
+        HttpClientResponse response,
+        String cacheKey,
+        ValidatorCache.CachedResponse cachedResponse,
+        boolean spool
+    ) {
         if (response.statusCode() == HttpStatusCode.OK_200) {
+            final String etag = response.getHeader(HttpHeaders.ETAG);
+            final Tags tags = metricTags(URI.create(url).getHost());
+            final long start = System.nanoTime();
+            final long contentLength = contentLength(response);
+            if (maxResponseSize > 0 && contentLength > maxResponseSize) {
+                return reject(url, response, tags, "content-length", contentLength);
+            }
+            if (spool && spoolThreshold > 0 && (contentLength < 0 || contentLength > spoolThreshold)) {
+                // A body of unknown length, chunked or over HTTP/2, is only written to disk once it has grown past the threshold. A
+                // spooled body is not kept by the validator cache either
+                final long threshold = contentLength < 0 ? spoolThreshold : 0;
+                return SpooledBody.read(vertx, response, etag, threshold, spoolDirectory, maxResponseSize)
+                    .recover(throwable -> rejectStreamed(url, response, tags, throwable))
+                    .onSuccess(body -> {
+                        metrics().recordPhase("download", tags, start);
+                        metrics().recordResponseSize(tags, body.isSpooled() ? body.spooled().length() : body.body().length());
+                        if (!body.isSpooled() && cacheKey != null) {
+                            validatorCache().put(
+                                cacheKey,
+                                new ValidatorCache.CachedResponse(etag, response.getHeader(HttpHeaders.LAST_MODIFIED), body.body())
+                            );
+                        }
+                    });
+            }
+            return readBody(response)
+                .recover(throwable -> rejectStreamed(url, response, tags, throwable))
+                .onSuccess(body -> {
+                    metrics().recordPhase("download", tags, start);
+                    metrics().recordResponseSize(tags, body.length());
+                    if (cacheKey != null) {
+                        validatorCache().put(
+                            cacheKey,
+                            new ValidatorCache.CachedResponse(etag, response.getHeader(HttpHeaders.LAST_MODIFIED), body)
+                        );
+                    }
+                })
+                .map(body -> new GitHubResponse(body, etag));
+        }
+
+        if (response.statusCode() == HttpStatusCode.NOT_MODIFIED_304 && cachedResponse != null) {
+            log.debug("GitHub content of '{}' has not been modified, using the cached response", url);
+            return response.body().map(ignored -> new GitHubResponse(cachedResponse.body(), cachedResponse.etag()));
+        }
+
+        return handleFailure(url, response);
+    }
+
+    /**
+     * @return the announced length of the body, <code>-1</code> if it is unknown
+     */
+    private static long contentLength(HttpClientResponse response) {
+        try {
+            final String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+            return contentLength == null ? -1 : Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Aggregates the body in memory, failing as soon as more than <code>fetcher.github.maxResponseSize</code> bytes have been received.
+     */
+    private Future<Buffer> readBody(HttpClientResponse response) {
+        if (maxResponseSize <= 0) {
             return response.body();
-        } else if (response.statusCode() == HttpStatusCode.NOT_FOUND_404) {
-            return Future.failedFuture(new ResourceNotFoundException(buildNotFoundMessage(url), null));
-        } else {
-            return Future.failedFuture(
-                new FetcherException(
-                    "Unable to fetch '" + url + "'. Status code: " + response.statusCode() + ". Message: " + response.statusMessage(),
-                    null
-                )
-            );
         }
+        final Promise<Buffer> promise = Promise.promise();
+        final Buffer body = Buffer.buffer();
+        response.exceptionHandler(promise::tryFail);
+        response.endHandler(v -> promise.tryComplete(body));
+        response.handler(chunk -> {
+            if (promise.future().isComplete()) {
+                return;
+            }
+            if ((long) body.length() + chunk.length() > maxResponseSize) {
+                promise.tryFail(
+                    new ResponseTooLargeException(
+                        "Response body is larger than the maximum of " + maxResponseSize + " bytes",
+                        (long) body.length() + chunk.length(),
+                        maxResponseSize
+                    )
+                );
+                return;
+            }
+            body.appendBuffer(chunk);
+        });
+        return promise.future();
+    }
+
+    private <T> Future<T> rejectStreamed(String url, HttpClientResponse response, Tags tags, Throwable throwable) {
+        if (throwable instanceof ResponseTooLargeException tooLarge) {
+            return reject(url, response, tags, "stream", tooLarge.getSize());
+        }
+        return Future.failedFuture(throwable);
+    }
+
+    /**
+     * Aborts a download larger than <code>fetcher.github.maxResponseSize</code>.
+     *
+     * @param size size of the response, or the number of bytes received so far
+     */
+    private <T> Future<T> reject(String url, HttpClientResponse response, Tags tags, String reason, long size) {
+        metrics().countRejected(tags, reason);
+        // The stream is reset rather than drained, what is left of the body would be thrown away anyway
+        response.request().reset();
+        return Future.failedFuture(tooLarge("GitHub response of '" + url + "'", size));
+    }
+
+    private ResponseTooLargeException tooLarge(String subject, long size) {
+        log.warn("{} is {} bytes long, more than the maximum of {} bytes", subject, size, maxResponseSize);
+        return new ResponseTooLargeException(
+            subject + " is larger than the maximum of " + maxResponseSize + " bytes (" + size + " bytes)",
+            size,
+            maxResponseSize
+        );
+    }
+
+    private <T> Future<T> handleFailure(String url, HttpClientResponse response) {
+        // Error bodies are drained so that the connection can go back to the pool
+        if (response.statusCode() == HttpStatusCode.NOT_FOUND_404) {
+            return response
+                .body()
+                .transform(ignored -> Future.failedFuture(new ResourceNotFoundException(buildNotFoundMessage(url), null)));
+        }
+        return response
+            .body()
+            .transform(body -> {
+                final GitHubReaders.Error error = body.succeeded() ? readers().readError(body.result().getBytes()) : null;
+                return Future.failedFuture(
+                    new FetcherException(
+                        "Unable to fetch '" +
+                        url +
+                        "'. Status code: " +
+                        response.statusCode() +
+                        ". Message: " +
+                        response.statusMessage() +
+                        (error == null || error.message() == null ? "" : " (" + error.message() + ")"),
+                        null
+                    )
+                );
+            });
+    }
+
+    private GitHubReaders readers() {
+        return GitHubReaders.of(mapper);
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(GitHubResponse response) throws IOException;
     }
 
     public void setVertx(Vertx vertx) {
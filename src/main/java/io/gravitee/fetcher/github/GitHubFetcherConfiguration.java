@@ -45,4 +45,6 @@ public class GitHubFetcherConfiguration implements FetcherConfiguration, Filepat
     private String fetchCron;
 
     private boolean autoFetch = false;
+
+    private boolean rawContent = false;
 }
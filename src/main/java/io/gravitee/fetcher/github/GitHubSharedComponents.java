@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.CustomLog;
+
+/**
+ * Node-wide components shared by every {@link GitHubFetcher} instance.
+ *
+ * A fetcher is instantiated for each page configuration, so anything that must outlive a single fetch (connection pools, caches, ...)
+ * is stored in a Vert.x local map. It is therefore bound to the lifecycle of the {@link Vertx} instance and released when it is closed.
+ * Keys are suffixed with the plugin class loader identity so that a redeployed plugin never sees instances of its previous classes.
+ *
+ * The host gives fetchers no hook to be notified of the undeployment of the plugin, it is detected instead: the plugin class loader
+ * no longer finds its own classes once it has been closed. The components of the class loader are then closed and dropped, so that
+ * the map does not keep it reachable. A redeployed plugin also closes the components left by its previous class loaders the first
+ * time it uses the map.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public final class GitHubSharedComponents {
+
+    private static final String LOCAL_MAP_NAME = "gravitee-fetcher-github";
+    private static final ClassLoader CLASS_LOADER = GitHubSharedComponents.class.getClassLoader();
+    private static final String CLASS_LOADER_ID = Integer.toHexString(System.identityHashCode(CLASS_LOADER));
+    private static final String CLASS_RESOURCE = GitHubSharedComponents.class.getName().replace('.', '/') + ".class";
+    private static final long UNDEPLOY_CHECK_PERIOD_MS = 30_000;
+    private static final Set<Vertx> WATCHED = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private GitHubSharedComponents() {}
+
+    @SuppressWarnings("unchecked")
+    public static <T extends Shareable> T getOrCreate(Vertx vertx, String name, Supplier<T> factory) {
+        if (WATCHED.add(vertx)) {
+            closePreviousDeployments(vertx);
+            closeWhen(vertx, () -> isUndeployed(CLASS_LOADER), UNDEPLOY_CHECK_PERIOD_MS);
+        }
+        LocalMap<String, Shareable> components = vertx.sharedData().getLocalMap(LOCAL_MAP_NAME);
+        return (T) components.computeIfAbsent(name + "@" + CLASS_LOADER_ID, key -> factory.get());
+    }
+
+    /**
+     * Removes the components created by this class loader, closing those which are {@link AutoCloseable}.
+     */
+    public static void closeAll(Vertx vertx) {
+        WATCHED.remove(vertx);
+        final String suffix = "@" + CLASS_LOADER_ID;
+        close(vertx, key -> key.endsWith(suffix));
+    }
+
+    /**
+     * Checks periodically whether the plugin has been undeployed, and closes its components once it has.
+     */
+    static void closeWhen(Vertx vertx, BooleanSupplier undeployed, long period) {
+        vertx.setPeriodic(period, timerId -> {
+            if (undeployed.getAsBoolean()) {
+                vertx.cancelTimer(timerId);
+                log.debug("GitHub fetcher plugin has been undeployed, closing its shared components");
+                closeAll(vertx);
+            }
+        });
+    }
+
+    /**
+     * A closed {@link URLClassLoader} no longer finds any resource. Other class loaders, such as the application one of the tests, are
+     * never undeployed.
+     */
+    static boolean isUndeployed(ClassLoader classLoader) {
+        return classLoader instanceof URLClassLoader urlClassLoader && urlClassLoader.findResource(CLASS_RESOURCE) == null;
+    }
+
+    private static void closePreviousDeployments(Vertx vertx) {
+        final String suffix = "@" + CLASS_LOADER_ID;
+        close(vertx, key -> !key.endsWith(suffix));
+    }
+
+    private static void close(Vertx vertx, Predicate<String> keys) {
+        final LocalMap<String, Shareable> components = vertx.sharedData().getLocalMap(LOCAL_MAP_NAME);
+        final List<String> matching = components.keySet().stream().filter(keys).toList();
+        for (String key : matching) {
+            final Shareable component = components.remove(key);
+            if (component instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Unable to close GitHub fetcher component {}", key, e);
+                }
+            }
+        }
+    }
+}
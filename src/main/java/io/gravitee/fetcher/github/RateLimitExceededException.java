@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github;
+
+import io.gravitee.fetcher.api.FetcherException;
+
+/**
+ * Thrown when the GitHub rate limit of a token would not allow a request before the maximum accepted wait.
+ *
+ * @author GraviteeSource Team
+ */
+public class RateLimitExceededException extends FetcherException {
+
+    private final long retryAfter;
+
+    public RateLimitExceededException(String message, long retryAfter) {
+        super(message, null);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return delay in milliseconds after which GitHub should accept requests again
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
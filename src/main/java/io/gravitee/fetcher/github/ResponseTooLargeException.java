@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github;
+
+import io.gravitee.fetcher.api.FetcherException;
+
+/**
+ * Thrown when a file or a response of GitHub is larger than the maximum size a fetch accepts. The download is aborted as soon as the
+ * size is known to exceed it.
+ *
+ * @author GraviteeSource Team
+ */
+public class ResponseTooLargeException extends FetcherException {
+
+    private final long size;
+    private final long maxSize;
+
+    public ResponseTooLargeException(String message, long size, long maxSize) {
+        super(message, null);
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return size in bytes of the file or response, or the number of bytes received when the download was aborted
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return maximum size in bytes accepted
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.archive;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming reader of the tar archives produced by GitHub (ustar with pax extended headers).
+ *
+ * Entries are read one after the other from the underlying stream, whose content is skipped unless {@link #readContent()} is called, so
+ * that only the selected files are ever held in memory.
+ *
+ * @author GraviteeSource Team
+ */
+public class TarReader implements Closeable {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final char TYPE_FILE = '0';
+    private static final char TYPE_FILE_LEGACY = '\0';
+    private static final char TYPE_PAX_HEADER = 'x';
+    private static final char TYPE_PAX_GLOBAL_HEADER = 'g';
+    private static final char TYPE_GNU_LONG_NAME = 'L';
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private long remaining;
+    private long padding;
+
+    public TarReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Moves to the next entry, skipping what is left of the current one.
+     *
+     * @return the next entry, <code>null</code> at the end of the archive
+     */
+    public Entry next() throws IOException {
+        skipCurrent();
+
+        String longPath = null;
+        while (true) {
+            if (!readHeader()) {
+                return null;
+            }
+
+            final char type = (char) header[156];
+            final String path = longPath != null ? longPath : path();
+            remaining = size();
+            padding = (BLOCK_SIZE - (remaining % BLOCK_SIZE)) % BLOCK_SIZE;
+
+            if (type == TYPE_PAX_HEADER) {
+                final String paxPath = paxPath(readContent());
+                longPath = paxPath != null ? paxPath : longPath;
+            } else if (type == TYPE_GNU_LONG_NAME) {
+                longPath = trimNul(new String(readContent(), StandardCharsets.UTF_8));
+            } else if (type == TYPE_PAX_GLOBAL_HEADER) {
+                skipCurrent();
+            } else {
+                return new Entry(path, type == TYPE_FILE || type == TYPE_FILE_LEGACY, remaining);
+            }
+        }
+    }
+
+    /**
+     * Reads the whole content of the current entry.
+     */
+    public byte[] readContent() throws IOException {
+        if (remaining > Integer.MAX_VALUE - 8) {
+            throw new IOException("Archive entry is too large to be read in memory (" + remaining + " bytes)");
+        }
+        final byte[] content = in.readNBytes((int) remaining);
+        if (content.length != remaining) {
+            throw new EOFException("Unexpected end of archive");
+        }
+        remaining = 0;
+        skipFully(padding);
+        padding = 0;
+        return content;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean readHeader() throws IOException {
+        final int read = in.readNBytes(header, 0, BLOCK_SIZE);
+        if (read < BLOCK_SIZE) {
+            return false;
+        }
+        // The archive ends with two blocks of zeros
+        for (byte b : header) {
+            if (b != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void skipCurrent() throws IOException {
+        skipFully(remaining + padding);
+        remaining = 0;
+        padding = 0;
+    }
+
+    private void skipFully(long count) throws IOException {
+        in.skipNBytes(count);
+    }
+
+    private String path() {
+        final String name = field(0, 100);
+        final String prefix = "ustar".equals(field(257, 5)) ? field(345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private long size() throws IOException {
+        // Sizes over 8GB are stored as a big-endian binary number flagged by the high bit of the first byte
+        if ((header[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xFF);
+            }
+            return size;
+        }
+        final String octal = field(124, 12).trim();
+        try {
+            return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid archive entry size: " + octal, e);
+        }
+    }
+
+    private String field(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Pax records are formatted as <code>"%d %s=%s\n", length, keyword, value</code>, the length being a number of bytes.
+     */
+    private static String paxPath(byte[] records) {
+        int index = 0;
+        while (index < records.length) {
+            int space = index;
+            while (space < records.length && records[space] != ' ') {
+                space++;
+            }
+            if (space == records.length) {
+                break;
+            }
+            final int length = Integer.parseInt(new String(records, index, space - index, StandardCharsets.US_ASCII));
+            if (length <= 0) {
+                break;
+            }
+            final int end = Math.min(index + length - 1, records.length);
+            final String record = new String(records, space + 1, Math.max(0, end - space - 1), StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) {
+                return record.substring("path=".length());
+            }
+            index += length;
+        }
+        return null;
+    }
+
+    private static String trimNul(String value) {
+        final int nul = value.indexOf('\0');
+        return nul < 0 ? value : value.substring(0, nul);
+    }
+
+    /**
+     * @param path path of the entry in the archive
+     * @param file whether the entry is a regular file
+     * @param size size of the content of the entry, in bytes
+     */
+    public record Entry(String path, boolean file, long size) {}
+}
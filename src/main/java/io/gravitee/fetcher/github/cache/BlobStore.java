@@ -0,0 +1,317 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.CustomLog;
+
+/**
+ * Node-wide content-addressed store of git blobs, keyed by their SHA.
+ *
+ * A blob is immutable: once known, it is served for every branch, tag and page configuration pointing at the same file, without going
+ * to GitHub again. A blob is only stored if its content hashes to its SHA, so a wrong SHA can never serve wrong content. Blobs are kept
+ * in a LRU map bounded by their total size. When a directory is configured, they are also written to disk, the disk tier being read on
+ * memory misses and pruned to its own bound, the oldest blobs first.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class BlobStore implements Shareable {
+
+    private static final String COMPONENT_NAME = "blob-store";
+    private static final String BLOB_SUFFIX = ".blob";
+    private static final Pattern SHA_PATTERN = Pattern.compile("[0-9a-f]{40}|[0-9a-f]{64}");
+
+    private final Vertx vertx;
+    private final long maxSizeInBytes;
+    private final Path directory;
+    private final long maxDiskSizeInBytes;
+    private final LinkedHashMap<String, byte[]> blobs = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Future<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskSizeInBytes = new AtomicLong();
+    // The disk tier is pruned from worker threads, never while holding the lock of the memory tier
+    private final Object diskLock = new Object();
+    private long sizeInBytes;
+
+    BlobStore(Vertx vertx, long maxSizeInBytes, Path directory, long maxDiskSizeInBytes) {
+        this.vertx = vertx;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.directory = directory;
+        this.maxDiskSizeInBytes = maxDiskSizeInBytes;
+
+        if (directory != null) {
+            vertx
+                .executeBlocking(
+                    () -> {
+                        Files.createDirectories(directory);
+                        prune();
+                        return null;
+                    },
+                    false
+                )
+                .onFailure(throwable -> log.warn("Unable to prepare GitHub blob store in {}", directory, throwable));
+        }
+    }
+
+    /**
+     * @param maxSizeInBytes maximum total size of the blobs kept in memory
+     * @param directory directory of the disk tier, <code>null</code> or empty to keep the blobs in memory only
+     * @param maxDiskSizeInBytes maximum total size of the blobs kept on disk
+     */
+    public static BlobStore get(Vertx vertx, long maxSizeInBytes, String directory, long maxDiskSizeInBytes) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () ->
+            new BlobStore(vertx, maxSizeInBytes, directory == null || directory.isBlank() ? null : Path.of(directory), maxDiskSizeInBytes)
+        );
+    }
+
+    public static boolean isSha(Object sha) {
+        return sha instanceof String value && SHA_PATTERN.matcher(value).matches();
+    }
+
+    /**
+     * Looks the blob up in memory first, then on disk from a worker thread.
+     *
+     * @return the content of the blob, <code>null</code> if it is not stored
+     */
+    public Future<byte[]> get(String sha) {
+        if (!isSha(sha)) {
+            return Future.succeededFuture(null);
+        }
+        synchronized (this) {
+            final byte[] content = blobs.get(sha);
+            if (content != null || directory == null) {
+                count(content);
+                return Future.succeededFuture(content);
+            }
+        }
+
+        return vertx
+            .executeBlocking(() -> readFromDisk(sha), false)
+            .map(content -> {
+                count(content);
+                if (content != null) {
+                    storeInMemory(sha, content);
+                }
+                return content;
+            });
+    }
+
+    /**
+     * @return the content of the blob, loaded with the given loader and stored if it is unknown. Concurrent loads of a same blob are
+     * collapsed.
+     */
+    public Future<byte[]> getOrLoad(String sha, Supplier<Future<byte[]>> loader) {
+        return get(sha).compose(stored -> {
+            if (stored != null) {
+                return Future.succeededFuture(stored);
+            }
+            final Promise<byte[]> promise = Promise.promise();
+            final Future<byte[]> loading = promise.future();
+            final Future<byte[]> existing = inFlight.putIfAbsent(sha, loading);
+            if (existing != null) {
+                return existing;
+            }
+
+            Future<byte[]> loaded;
+            try {
+                loaded = loader.get();
+            } catch (RuntimeException ex) {
+                loaded = Future.failedFuture(ex);
+            }
+            // The content is hashed on a worker thread, a blob may weigh several megabytes
+            loaded
+                .compose(content ->
+                    vertx.executeBlocking(
+                        () -> {
+                            put(sha, content);
+                            return content;
+                        },
+                        false
+                    )
+                )
+                .onComplete(ar -> {
+                    inFlight.remove(sha, loading);
+                    promise.handle(ar);
+                });
+            return loading;
+        });
+    }
+
+    /**
+     * Stores the blob, provided its content matches its SHA. The content being hashed, this is meant to be called from a worker thread.
+     *
+     * @return <code>true</code> if the blob is stored
+     */
+    public boolean put(String sha, byte[] content) {
+        if (content == null || !isSha(sha)) {
+            return false;
+        }
+        synchronized (this) {
+            if (blobs.containsKey(sha)) {
+                return true;
+            }
+        }
+        if (!sha.equals(hash(content, sha.length() == 40 ? "SHA-1" : "SHA-256"))) {
+            log.debug("Content of GitHub blob {} does not match its SHA, it is not stored", sha);
+            return false;
+        }
+        storeInMemory(sha, content);
+        writeToDisk(sha, content);
+        return true;
+    }
+
+    public synchronized boolean isEmpty() {
+        return blobs.isEmpty();
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    private void count(byte[] content) {
+        (content != null ? hits : misses).incrementAndGet();
+    }
+
+    private synchronized void storeInMemory(String sha, byte[] content) {
+        if (content.length > maxSizeInBytes || blobs.containsKey(sha)) {
+            return;
+        }
+        blobs.put(sha, content);
+        sizeInBytes += content.length;
+        final Iterator<Map.Entry<String, byte[]>> eldest = blobs.entrySet().iterator();
+        while (sizeInBytes > maxSizeInBytes && eldest.hasNext()) {
+            sizeInBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Git hashes a blob as its type and length followed by its content.
+     */
+    private static String hash(byte[] content, String algorithm) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance(algorithm);
+            digest.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not available", e);
+        }
+    }
+
+    private byte[] readFromDisk(String sha) {
+        try {
+            return Files.readAllBytes(blobPath(sha));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read GitHub blob {} from {}", sha, directory, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String sha, byte[] content) {
+        if (directory == null || content.length > maxDiskSizeInBytes) {
+            return;
+        }
+        vertx
+            .executeBlocking(
+                () -> {
+                    final Path target = blobPath(sha);
+                    if (Files.exists(target)) {
+                        return null;
+                    }
+                    final Path tmp = Files.createTempFile(directory, "github", ".tmp");
+                    Files.write(tmp, content);
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    if (diskSizeInBytes.addAndGet(content.length) > maxDiskSizeInBytes) {
+                        prune();
+                    }
+                    return null;
+                },
+                false
+            )
+            .onFailure(throwable -> log.warn("Unable to write GitHub blob {} to {}", sha, directory, throwable));
+    }
+
+    private void prune() throws IOException {
+        synchronized (diskLock) {
+            final List<Path> files;
+            try (Stream<Path> stream = Files.list(directory)) {
+                files = stream
+                    .filter(path -> path.getFileName().toString().endsWith(BLOB_SUFFIX))
+                    .sorted(Comparator.comparing(BlobStore::lastModifiedTime).reversed())
+                    .toList();
+            }
+            long kept = 0;
+            for (Path path : files) {
+                final long size = Files.size(path);
+                if (kept + size > maxDiskSizeInBytes) {
+                    Files.deleteIfExists(path);
+                } else {
+                    kept += size;
+                }
+            }
+            diskSizeInBytes.set(kept);
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path blobPath(String sha) {
+        return directory.resolve(sha.toLowerCase(Locale.ROOT) + BLOB_SUFFIX);
+    }
+}
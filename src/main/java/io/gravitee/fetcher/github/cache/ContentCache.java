@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import io.gravitee.fetcher.api.Resource;
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.gravitee.fetcher.github.http.SpooledBody;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.io.ByteArrayInputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-wide cache of decoded GitHub contents, so that the many page configurations pointing at the same file share a single download.
+ *
+ * Entries expire after a TTL and the cache is bounded by the total size of the contents it holds, the least recently used entries being
+ * evicted first. Concurrent misses on the same key are collapsed: only the first caller loads the content, the others get the same
+ * pending future. Contents spooled to a file are handed to the callers waiting for them, but are never kept.
+ *
+ * @author GraviteeSource Team
+ */
+public class ContentCache implements Shareable {
+
+    private static final String COMPONENT_NAME = "content-cache";
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final long ttl;
+    private final long maxSizeInBytes;
+    private final LinkedHashMap<String, CachedContent> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Future<CachedContent>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long sizeInBytes;
+
+    ContentCache(long ttl, long maxSizeInBytes) {
+        this.ttl = ttl;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    /**
+     * @param ttl time to live of an entry in milliseconds, <code>0</code> to disable caching (concurrent loads are still collapsed)
+     * @param maxSizeInBytes maximum total size of the cached contents
+     */
+    public static ContentCache get(Vertx vertx, long ttl, long maxSizeInBytes) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> new ContentCache(ttl, maxSizeInBytes));
+    }
+
+    public Future<CachedContent> getOrLoad(String key, Loader loader) {
+        final CachedContent cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return Future.succeededFuture(cached);
+        }
+        misses.incrementAndGet();
+
+        final Promise<CachedContent> promise = Promise.promise();
+        final Future<CachedContent> loading = promise.future();
+        final Future<CachedContent> existing = inFlight.putIfAbsent(key, loading);
+        if (existing != null) {
+            return existing;
+        }
+
+        Future<CachedContent> loaded;
+        try {
+            loaded = loader.load();
+        } catch (RuntimeException ex) {
+            loaded = Future.failedFuture(ex);
+        }
+        loaded.onComplete(ar -> {
+            if (ar.succeeded()) {
+                store(key, ar.result());
+            }
+            inFlight.remove(key, loading);
+            promise.handle(ar);
+            // The callers have opened their stream on a spooled content, which is deleted once they are all closed
+            if (ar.succeeded() && ar.result() != null) {
+                ar.result().release();
+            }
+        });
+        return loading;
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    public synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized void invalidate(String key) {
+        final CachedContent removed = entries.remove(key);
+        if (removed != null) {
+            sizeInBytes -= removed.weight();
+        }
+    }
+
+    /**
+     * Drops every entry whose key starts with the given prefix, whatever the credentials it was loaded with.
+     */
+    public synchronized void invalidatePrefix(String prefix) {
+        final Iterator<Map.Entry<String, CachedContent>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, CachedContent> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                sizeInBytes -= entry.getValue().weight();
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized CachedContent lookup(String key) {
+        final CachedContent cached = entries.get(key);
+        if (cached != null && cached.expiresAt() <= System.currentTimeMillis()) {
+            invalidate(key);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void store(String key, CachedContent content) {
+        if (ttl <= 0 || content.spooled() != null || content.weight() > maxSizeInBytes) {
+            return;
+        }
+        invalidate(key);
+        entries.put(key, content.withExpiration(System.currentTimeMillis() + ttl));
+        sizeInBytes += content.weight();
+
+        final Iterator<CachedContent> eldest = entries.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && eldest.hasNext()) {
+            sizeInBytes -= eldest.next().weight();
+            eldest.remove();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        Future<CachedContent> load();
+    }
+
+    /**
+     * Decoded content of a file and its metadata. Both are shared between callers and must never be modified, {@link #toResource()}
+     * hands out a fresh stream and a copy of the metadata.
+     *
+     * @param spooled content written to a temporary file instead of being held in <code>content</code>
+     */
+    public record CachedContent(byte[] content, Map<String, Object> metadata, long expiresAt, SpooledBody spooled) {
+        public CachedContent(byte[] content, Map<String, Object> metadata) {
+            this(content, metadata, Long.MAX_VALUE, null);
+        }
+
+        public CachedContent(SpooledBody spooled, Map<String, Object> metadata) {
+            this(null, metadata, Long.MAX_VALUE, spooled);
+        }
+
+        CachedContent withExpiration(long expiresAt) {
+            return new CachedContent(content, metadata, expiresAt, spooled);
+        }
+
+        void release() {
+            if (spooled != null) {
+                spooled.release();
+            }
+        }
+
+        long weight() {
+            return (content == null ? 0 : content.length) + ENTRY_OVERHEAD_BYTES;
+        }
+
+        public Resource toResource() {
+            final Resource resource = new Resource();
+            if (spooled != null) {
+                resource.setContent(spooled.open());
+            } else if (content != null) {
+                resource.setContent(new ByteArrayInputStream(content));
+            }
+            if (metadata != null) {
+                resource.setMetadata(new HashMap<>(metadata));
+            }
+            return resource;
+        }
+    }
+}
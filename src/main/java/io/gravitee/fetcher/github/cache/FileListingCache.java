@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Node-wide record of the last files listed for a configuration, along with the commit they were listed at, so that the next listing
+ * only has to apply the changes GitHub reports between this commit and the new head.
+ *
+ * The number of listings kept is bounded, the least recently used ones being dropped first.
+ *
+ * @author GraviteeSource Team
+ */
+public class FileListingCache implements Shareable {
+
+    private static final String COMPONENT_NAME = "file-listing-cache";
+
+    private final int maxEntries;
+    private final Map<String, Listing> listings;
+
+    FileListingCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.listings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Listing> eldest) {
+                return size() > FileListingCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param maxEntries maximum number of listings kept
+     */
+    public static FileListingCache get(Vertx vertx, int maxEntries) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> new FileListingCache(maxEntries));
+    }
+
+    /**
+     * @return the last listing of the given key, <code>null</code> if none is known
+     */
+    public synchronized Listing get(String key) {
+        return listings.get(key);
+    }
+
+    public synchronized void put(String key, String commit, String[] files) {
+        listings.put(key, new Listing(commit, files.clone()));
+    }
+
+    public synchronized void invalidate(String key) {
+        listings.remove(key);
+    }
+
+    public synchronized int size() {
+        return listings.size();
+    }
+
+    /**
+     * @param commit SHA of the commit the files were listed at
+     * @param files the listed paths, formatted as returned by the fetcher
+     */
+    public record Listing(String commit, String[] files) {}
+}
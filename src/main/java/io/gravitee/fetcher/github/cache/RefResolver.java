@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Node-wide cache of the resolution of branches and tags to the SHA of their head commit.
+ *
+ * A commit SHA is immutable: the trees and contents requested at a commit never change and can be cached for as long as needed. Only
+ * the resolution of a ref has to be refreshed, after a short TTL. Concurrent resolutions of a same ref are collapsed.
+ *
+ * @author GraviteeSource Team
+ */
+public class RefResolver implements Shareable {
+
+    private static final String COMPONENT_NAME = "ref-resolver";
+    private static final Pattern COMMIT_SHA_PATTERN = Pattern.compile("[0-9a-f]{40}|[0-9a-f]{64}");
+
+    private final long ttl;
+    private final Map<String, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final Map<String, Future<String>> inFlight = new ConcurrentHashMap<>();
+
+    RefResolver(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * @param ttl time in milliseconds a resolution is kept before the ref is resolved again
+     */
+    public static RefResolver get(Vertx vertx, long ttl) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> new RefResolver(ttl));
+    }
+
+    public static boolean isCommitSha(String ref) {
+        return ref != null && COMMIT_SHA_PATTERN.matcher(ref).matches();
+    }
+
+    /**
+     * @param key identifies the repository, the ref and the credentials used to resolve it
+     * @param lookup resolves the ref when its resolution is unknown or expired
+     */
+    public Future<String> resolve(String key, Supplier<Future<String>> lookup) {
+        final long now = System.currentTimeMillis();
+        final Resolution resolution = resolutions.get(key);
+        if (resolution != null && resolution.expiresAt() > now) {
+            return Future.succeededFuture(resolution.sha());
+        }
+
+        final Promise<String> promise = Promise.promise();
+        final Future<String> resolving = promise.future();
+        final Future<String> existing = inFlight.putIfAbsent(key, resolving);
+        if (existing != null) {
+            return existing;
+        }
+
+        Future<String> resolved;
+        try {
+            resolved = lookup.get();
+        } catch (RuntimeException ex) {
+            resolved = Future.failedFuture(ex);
+        }
+        resolved.onComplete(ar -> {
+            if (ar.succeeded()) {
+                resolutions.put(key, new Resolution(ar.result(), System.currentTimeMillis() + ttl));
+            }
+            inFlight.remove(key, resolving);
+            promise.handle(ar);
+        });
+        return resolving;
+    }
+
+    /**
+     * Forgets the resolution of a ref, typically once a push moved it.
+     */
+    public void invalidate(String key) {
+        resolutions.remove(key);
+    }
+
+    private record Resolution(String sha, long expiresAt) {}
+}
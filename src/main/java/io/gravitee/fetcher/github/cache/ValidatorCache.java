@@ -0,0 +1,316 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.shareddata.Shareable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+import lombok.CustomLog;
+
+/**
+ * Remembers the <code>ETag</code> and <code>Last-Modified</code> validators of the responses received from GitHub, along with their
+ * body, so that the next request for the same URL can be made conditional and a <code>304 Not Modified</code> answered from the cache.
+ *
+ * Entries are kept in an LRU map bounded by their number and by the total size of their bodies, bodies larger than a maximum entry size
+ * not being kept at all. When a directory is configured, they are also written to disk so that they survive a restart of the node; the
+ * disk tier is read lazily on memory misses and pruned to the same bounds when the cache is created. The writes and deletes of the disk
+ * tier run one after the other, in the order the entries were stored and evicted in memory, so that an entry evicted right after being
+ * stored is not left on disk.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class ValidatorCache implements Shareable {
+
+    private static final String COMPONENT_NAME = "validator-cache";
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final Vertx vertx;
+    private final int maxEntries;
+    private final long maxSizeInBytes;
+    private final long maxEntrySizeInBytes;
+    private final Path directory;
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes;
+    // Tail of the disk operations, guarded by the lock of the entries
+    private Future<?> diskOperations = Future.succeededFuture();
+
+    ValidatorCache(Vertx vertx, int maxEntries, long maxSizeInBytes, long maxEntrySizeInBytes, Path directory) {
+        this.vertx = vertx;
+        this.maxEntries = maxEntries;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.maxEntrySizeInBytes = maxEntrySizeInBytes;
+        this.directory = directory;
+
+        if (directory != null) {
+            synchronized (entries) {
+                onDisk(
+                    () -> {
+                        Files.createDirectories(directory);
+                        prune();
+                        return null;
+                    },
+                    "prune"
+                );
+            }
+        }
+    }
+
+    /**
+     * @param maxEntries maximum number of responses kept, in memory and on disk
+     * @param maxSizeInBytes maximum total size of the response bodies kept, in memory and on disk
+     * @param maxEntrySizeInBytes maximum size of a response body kept, larger responses being requested again in full
+     * @param directory directory of the disk tier, <code>null</code> or empty to keep the cache in memory only
+     */
+    public static ValidatorCache get(Vertx vertx, int maxEntries, long maxSizeInBytes, long maxEntrySizeInBytes, String directory) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () ->
+            new ValidatorCache(
+                vertx,
+                maxEntries,
+                maxSizeInBytes,
+                maxEntrySizeInBytes,
+                directory == null || directory.isBlank() ? null : Path.of(directory)
+            )
+        );
+    }
+
+    /**
+     * @param accept media type requested, GitHub serving different representations of the same URL
+     */
+    public static String key(String url, String accept, String authorization) {
+        return CacheKeys.withCredentials(accept + " " + url, authorization);
+    }
+
+    /**
+     * Looks the response up in memory first, then on disk from a worker thread.
+     */
+    public Future<CachedResponse> get(String key) {
+        synchronized (entries) {
+            CachedResponse cachedResponse = entries.get(key);
+            if (cachedResponse != null || directory == null) {
+                return Future.succeededFuture(cachedResponse);
+            }
+        }
+
+        return vertx.executeBlocking(
+            () -> {
+                final CachedResponse fromDisk = readFromDisk(key);
+                if (fromDisk != null) {
+                    synchronized (entries) {
+                        if (!entries.containsKey(key)) {
+                            store(key, fromDisk);
+                        }
+                    }
+                }
+                return fromDisk;
+            },
+            false
+        );
+    }
+
+    public void put(String key, CachedResponse cachedResponse) {
+        if (cachedResponse.etag() == null && cachedResponse.lastModified() == null) {
+            return;
+        }
+        // A 304 is answered with the cached body, a response too large to be kept cannot be validated
+        if (cachedResponse.body() != null && cachedResponse.body().length() > maxEntrySizeInBytes) {
+            synchronized (entries) {
+                remove(key);
+            }
+            return;
+        }
+        synchronized (entries) {
+            store(key, cachedResponse);
+            writeToDisk(key, cachedResponse);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long sizeInBytes() {
+        synchronized (entries) {
+            return sizeInBytes;
+        }
+    }
+
+    /**
+     * Called with the lock of the entries held.
+     */
+    private void store(String key, CachedResponse cachedResponse) {
+        final CachedResponse previous = entries.put(key, cachedResponse);
+        if (previous != null) {
+            sizeInBytes -= weight(previous);
+        }
+        sizeInBytes += weight(cachedResponse);
+
+        final Iterator<Map.Entry<String, CachedResponse>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || sizeInBytes > maxSizeInBytes) && eldest.hasNext()) {
+            final Map.Entry<String, CachedResponse> entry = eldest.next();
+            sizeInBytes -= weight(entry.getValue());
+            eldest.remove();
+            deleteFromDisk(entry.getKey());
+        }
+    }
+
+    /**
+     * Called with the lock of the entries held.
+     */
+    private void remove(String key) {
+        final CachedResponse removed = entries.remove(key);
+        if (removed != null) {
+            sizeInBytes -= weight(removed);
+        }
+        deleteFromDisk(key);
+    }
+
+    private static long weight(CachedResponse cachedResponse) {
+        return (cachedResponse.body() == null ? 0 : cachedResponse.body().length()) + ENTRY_OVERHEAD_BYTES;
+    }
+
+    private CachedResponse readFromDisk(String key) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(entryPath(key)))) {
+            if (!key.equals(in.readUTF())) {
+                return null;
+            }
+            final String etag = nullIfEmpty(in.readUTF());
+            final String lastModified = nullIfEmpty(in.readUTF());
+            final byte[] body = in.readNBytes(in.readInt());
+            return new CachedResponse(etag, lastModified, Buffer.buffer(body));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unable to read cached GitHub response from {}", directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * Called with the lock of the entries held.
+     */
+    private void writeToDisk(String key, CachedResponse cachedResponse) {
+        if (directory == null) {
+            return;
+        }
+        onDisk(
+            () -> {
+                final Path target = entryPath(key);
+                final Path tmp = Files.createTempFile(directory, "github", ".tmp");
+                try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                    out.writeUTF(key);
+                    out.writeUTF(cachedResponse.etag() == null ? "" : cachedResponse.etag());
+                    out.writeUTF(cachedResponse.lastModified() == null ? "" : cachedResponse.lastModified());
+                    out.writeInt(cachedResponse.body().length());
+                    out.write(cachedResponse.body().getBytes());
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return null;
+            },
+            "write"
+        );
+    }
+
+    /**
+     * Called with the lock of the entries held.
+     */
+    private void deleteFromDisk(String key) {
+        if (directory == null) {
+            return;
+        }
+        onDisk(() -> Files.deleteIfExists(entryPath(key)), "delete");
+    }
+
+    /**
+     * Runs a disk operation on a worker thread once the previous ones are done, whatever their outcome. Called with the lock of the
+     * entries held, so that the operations follow the changes made in memory.
+     */
+    private void onDisk(Callable<?> operation, String name) {
+        diskOperations = diskOperations.transform(previous ->
+            vertx
+                .executeBlocking(operation, false)
+                .onFailure(throwable -> log.warn("Unable to {} cached GitHub responses in {}", name, directory, throwable))
+        );
+    }
+
+    /**
+     * @return a future completed once the disk operations requested so far are done
+     */
+    Future<Void> flush() {
+        synchronized (entries) {
+            return diskOperations.transform(ar -> Future.succeededFuture());
+        }
+    }
+
+    private void prune() throws IOException {
+        final List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                .filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                .sorted(Comparator.comparing(ValidatorCache::lastModifiedTime).reversed())
+                .toList();
+        }
+        long total = 0;
+        for (int i = 0; i < files.size(); i++) {
+            final Path path = files.get(i);
+            total += Files.size(path);
+            if (i >= maxEntries || total > maxSizeInBytes) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(CacheKeys.sha256(key) + ENTRY_SUFFIX);
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String nullIfEmpty(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A response body along with the validators GitHub returned for it.
+     */
+    public record CachedResponse(String etag, String lastModified, Buffer body) {}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.graphql;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.buffer.Buffer;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GraphQL query resolving several files of a repository in a single round-trip, each path being an aliased
+ * <code>object(expression: "ref:path")</code> field of the repository.
+ *
+ * The last commit touching each path is resolved along with its blob, as an aliased <code>history</code> of the ref, so that the files
+ * fetched together carry the same <code>commit_sha</code> as the ones fetched one by one when checking for changes.
+ *
+ * Expressions are passed as variables so that paths never need to be escaped in the query itself.
+ *
+ * @author GraviteeSource Team
+ */
+public class BlobsQuery {
+
+    private static final String BLOB_FIELDS = "... on Blob { oid byteSize isBinary isTruncated text }";
+    private static final String BLOB_ID_FIELDS = "... on Blob { oid byteSize isBinary }";
+    private static final String HISTORY_FIELDS = "... on Commit { history(first: 1, path: $p%d) { nodes { oid } } }";
+
+    private final String owner;
+    private final String repository;
+    private final String ref;
+    private final List<String> paths;
+    private final boolean withText;
+
+    /**
+     * @param ref branch, tag or commit SHA, <code>HEAD</code> for the default branch
+     * @param paths paths of the files, relative to the root of the repository
+     */
+    public BlobsQuery(String owner, String repository, String ref, List<String> paths) {
+        this(owner, repository, ref, paths, true);
+    }
+
+    /**
+     * @param withText <code>false</code> to only resolve the SHA of the blobs, without downloading their content
+     */
+    public BlobsQuery(String owner, String repository, String ref, List<String> paths, boolean withText) {
+        this.owner = owner;
+        this.repository = repository;
+        this.ref = ref;
+        this.paths = paths;
+        this.withText = withText;
+    }
+
+    public Buffer toRequestBody(ObjectMapper mapper) throws JsonProcessingException {
+        final StringBuilder query = new StringBuilder("query($owner: String!, $name: String!, $ref: String!");
+        final Map<String, Object> variables = new LinkedHashMap<>();
+        variables.put("owner", owner);
+        variables.put("name", repository);
+        variables.put("ref", ref);
+        for (int i = 0; i < paths.size(); i++) {
+            query.append(", $e").append(i).append(": String!, $p").append(i).append(": String!");
+            variables.put("e" + i, ref + ":" + paths.get(i));
+            variables.put("p" + i, paths.get(i));
+        }
+        query.append(") { repository(owner: $owner, name: $name) {");
+        final String fields = withText ? BLOB_FIELDS : BLOB_ID_FIELDS;
+        for (int i = 0; i < paths.size(); i++) {
+            query.append(" f").append(i).append(": object(expression: $e").append(i).append(") { ").append(fields).append(" }");
+            query.append(" h").append(i).append(": object(expression: $ref) { ").append(HISTORY_FIELDS.formatted(i)).append(" }");
+        }
+        query.append(" } }");
+
+        return Buffer.buffer(mapper.writeValueAsBytes(Map.of("query", query.toString(), "variables", variables)));
+    }
+
+    /**
+     * @return the blobs found, by path. Paths which do not exist or are not files are absent.
+     */
+    public Map<String, Blob> read(Response response) throws IOException {
+        final Map<String, Blob> repositoryBlobs = response.data() == null ? null : response.data().repository();
+        if (repositoryBlobs == null) {
+            throw new IOException("GitHub GraphQL API did not return repository " + owner + "/" + repository + ": " + response.errors());
+        }
+
+        final Map<String, Blob> blobs = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            final Blob blob = repositoryBlobs.get("f" + i);
+            if (blob != null && blob.oid() != null) {
+                final Blob commit = repositoryBlobs.get("h" + i);
+                blobs.put(paths.get(i), commit == null ? blob : blob.withHistory(commit.history()));
+            }
+        }
+        return blobs;
+    }
+
+    /**
+     * Response of the query, the repository being made of the aliased blobs and commits.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Response(Data data, List<Error> errors) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Data(Map<String, Blob> repository) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Error(String message) {}
+
+    /**
+     * @param text content of the blob, <code>null</code> when binary
+     * @param history last commit touching the path of the blob, only returned on the aliased commits and then set on the blob itself
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Blob(
+        String oid,
+        long byteSize,
+        @JsonProperty("isBinary") boolean binary,
+        @JsonProperty("isTruncated") boolean truncated,
+        String text,
+        History history
+    ) {
+        /**
+         * @return the SHA of the last commit touching the path of the blob, <code>null</code> if unknown
+         */
+        public String lastCommitOid() {
+            return history == null || history.nodes() == null || history.nodes().isEmpty() ? null : history.nodes().get(0).oid();
+        }
+
+        private Blob withHistory(History history) {
+            return new Blob(oid, byteSize, binary, truncated, text, history);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record History(List<Commit> nodes) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Commit(String oid) {}
+}
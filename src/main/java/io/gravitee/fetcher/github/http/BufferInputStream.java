@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.vertx.core.buffer.Buffer;
+import java.io.InputStream;
+
+/**
+ * Reads a Vert.x {@link Buffer} without copying it into an intermediate array first.
+ *
+ * @author GraviteeSource Team
+ */
+public class BufferInputStream extends InputStream {
+
+    private final Buffer buffer;
+    private int position;
+    private int mark;
+
+    public BufferInputStream(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return position < buffer.length() ? buffer.getByte(position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        final int available = available();
+        if (available == 0) {
+            return -1;
+        }
+        final int count = Math.min(len, available);
+        buffer.getBytes(position, position + count, b, off);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        final int count = (int) Math.max(0, Math.min(n, available()));
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length() - position;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() {
+        position = mark;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+/**
+ * @param failureRateThreshold percentage of failed calls over the window above which the circuit opens
+ * @param slowCallRateThreshold percentage of slow calls over the window above which the circuit opens
+ * @param slowCallDuration duration in milliseconds above which a call is considered slow
+ * @param windowSize number of most recent calls the rates are computed on
+ * @param minimumCalls number of calls needed before the rates are taken into account
+ * @param openDuration time in milliseconds the circuit stays open before probing GitHub again
+ * @param halfOpenProbes number of probe calls that must succeed for the circuit to close again
+ *
+ * @author GraviteeSource Team
+ */
+public record CircuitBreakerSettings(
+    int failureRateThreshold,
+    int slowCallRateThreshold,
+    long slowCallDuration,
+    int windowSize,
+    int minimumCalls,
+    long openDuration,
+    int halfOpenProbes
+) {}
@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.gravitee.common.http.HttpStatusCode;
+import io.gravitee.fetcher.github.CircuitBreakerOpenException;
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.gravitee.fetcher.github.RateLimitExceededException;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.shareddata.Shareable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.CustomLog;
+
+/**
+ * One circuit breaker per GitHub host, shared by every fetcher of the node.
+ *
+ * The circuit opens when the rate of failed calls (errors and <code>5xx</code> responses) or of slow calls over the most recent calls
+ * exceeds its threshold. While it is open, calls fail fast with a {@link CircuitBreakerOpenException}. Once the open duration has
+ * elapsed, a few probe calls are let through: the circuit closes if they all succeed and opens again otherwise. The settings of the
+ * first fetcher calling a host apply to its breaker.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class GitHubCircuitBreakers implements Shareable {
+
+    private static final String COMPONENT_NAME = "circuit-breakers";
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    GitHubCircuitBreakers() {}
+
+    public static GitHubCircuitBreakers get(Vertx vertx) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, GitHubCircuitBreakers::new);
+    }
+
+    public Future<HttpClientResponse> execute(String host, CircuitBreakerSettings settings, Supplier<Future<HttpClientResponse>> call) {
+        final CircuitBreaker breaker = breakers.computeIfAbsent(host, key -> new CircuitBreaker(settings));
+        final long start = System.currentTimeMillis();
+        if (!breaker.tryAcquire(start)) {
+            rejected.incrementAndGet();
+            return Future.failedFuture(new CircuitBreakerOpenException("Circuit breaker of GitHub host '" + host + "' is open"));
+        }
+
+        Future<HttpClientResponse> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            result = Future.failedFuture(ex);
+        }
+        return result.onComplete(ar -> {
+            final long end = System.currentTimeMillis();
+            // Waiting for the rate limit is not a sign of an outage
+            final boolean failure = ar.failed()
+                ? !(ar.cause() instanceof RateLimitExceededException)
+                : ar.result().statusCode() >= HttpStatusCode.INTERNAL_SERVER_ERROR_500;
+            if (breaker.record(failure, end - start > settings.slowCallDuration(), end)) {
+                log.warn("Circuit breaker of GitHub host '{}' is now {}", host, breaker.state());
+            }
+        });
+    }
+
+    public State state(String host) {
+        final CircuitBreaker breaker = breakers.get(host);
+        return breaker == null ? State.CLOSED : breaker.state();
+    }
+
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN,
+    }
+
+    private static final class CircuitBreaker {
+
+        private final CircuitBreakerSettings settings;
+        private final boolean[] failures;
+        private final boolean[] slowCalls;
+        private State state = State.CLOSED;
+        private int index;
+        private int calls;
+        private int failureCount;
+        private int slowCallCount;
+        private long openedAt;
+        private int probesStarted;
+        private int probesSucceeded;
+
+        CircuitBreaker(CircuitBreakerSettings settings) {
+            this.settings = settings;
+            this.failures = new boolean[Math.max(1, settings.windowSize())];
+            this.slowCalls = new boolean[failures.length];
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (state == State.OPEN) {
+                if (now - openedAt < settings.openDuration()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= settings.halfOpenProbes()) {
+                    return false;
+                }
+                probesStarted++;
+            }
+            return true;
+        }
+
+        /**
+         * @return whether the state of the circuit changed
+         */
+        synchronized boolean record(boolean failure, boolean slow, long now) {
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (failure || slow) {
+                        open(now);
+                        return true;
+                    }
+                    if (++probesSucceeded >= settings.halfOpenProbes()) {
+                        close();
+                        return true;
+                    }
+                    return false;
+                }
+                case CLOSED -> {
+                    addToWindow(failure, slow);
+                    if (
+                        calls >= settings.minimumCalls() &&
+                        (exceeds(failureCount, settings.failureRateThreshold()) || exceeds(slowCallCount, settings.slowCallRateThreshold()))
+                    ) {
+                        open(now);
+                        return true;
+                    }
+                    return false;
+                }
+                // Calls started before the circuit opened are not taken into account
+                default -> {
+                    return false;
+                }
+            }
+        }
+
+        private boolean exceeds(int count, int thresholdPercentage) {
+            return count * 100 >= thresholdPercentage * calls;
+        }
+
+        private void addToWindow(boolean failure, boolean slow) {
+            if (calls == failures.length) {
+                failureCount -= failures[index] ? 1 : 0;
+                slowCallCount -= slowCalls[index] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failures[index] = failure;
+            slowCalls[index] = slow;
+            failureCount += failure ? 1 : 0;
+            slowCallCount += slow ? 1 : 0;
+            index = (index + 1) % failures.length;
+        }
+
+        private void open(long now) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            index = 0;
+            calls = 0;
+            failureCount = 0;
+            slowCallCount = 0;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.shareddata.Shareable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.CustomLog;
+
+/**
+ * Keeps one pooled, keep-alive {@link HttpClient} per GitHub host, scheme and proxy so that consecutive fetches reuse the same
+ * connections instead of paying a TCP and TLS handshake each time.
+ *
+ * Unused pooled connections are closed by Vert.x after {@link HttpClientSettings#keepAliveTimeout()}, and clients that have not been
+ * used for {@link HttpClientSettings#clientIdleTimeout()} are closed by the registry itself, provided no request is being sent with
+ * them. Every client and the eviction timer are closed along with the other shared components when the plugin is undeployed.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class GitHubHttpClientRegistry implements Shareable, AutoCloseable {
+
+    private static final String COMPONENT_NAME = "http-client-registry";
+    private static final long EVICTION_PERIOD_MS = 30_000;
+    private static final int POOL_CLEANER_PERIOD_MS = 1_000;
+
+    private final Vertx vertx;
+    private final Map<ClientKey, PooledClient> clients = new ConcurrentHashMap<>();
+    private long evictionTimerId = -1;
+
+    GitHubHttpClientRegistry(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    public static GitHubHttpClientRegistry get(Vertx vertx) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> new GitHubHttpClientRegistry(vertx));
+    }
+
+    /**
+     * Sends a request with the client of the given key, which cannot be evicted until the returned future completes.
+     */
+    public <T> Future<T> execute(ClientKey key, Function<HttpClient, Future<T>> request) {
+        // Acquired atomically with the lookup, the eviction of the client is decided under the same lock
+        final PooledClient pooledClient = clients.compute(key, (k, existing) -> {
+            final PooledClient acquired = existing != null ? existing : create(k);
+            acquired.users.incrementAndGet();
+            return acquired;
+        });
+        scheduleEviction();
+
+        Future<T> result;
+        try {
+            result = request.apply(pooledClient.httpClient);
+        } catch (RuntimeException ex) {
+            result = Future.failedFuture(ex);
+        }
+        return result.onComplete(ar -> {
+            pooledClient.lastUsed = System.currentTimeMillis();
+            pooledClient.users.decrementAndGet();
+        });
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (evictionTimerId != -1) {
+            vertx.cancelTimer(evictionTimerId);
+            evictionTimerId = -1;
+        }
+        clients.forEach((key, pooledClient) -> closeClient(key, pooledClient));
+        clients.clear();
+    }
+
+    private PooledClient create(ClientKey key) {
+        final HttpClientSettings settings = key.settings();
+        final HttpClientOptions options = new HttpClientOptions()
+            .setSsl(key.ssl())
+            .setTrustAll(true)
+            .setKeepAlive(true)
+            .setTcpKeepAlive(true)
+            .setKeepAliveTimeout(settings.keepAliveTimeout())
+            .setConnectTimeout(settings.timeout())
+            .setIdleTimeout(settings.timeout())
+            .setIdleTimeoutUnit(TimeUnit.MILLISECONDS);
+
+        // HTTP/2 is only negotiated through ALPN, clear text upgrades are not supported by every GitHub Enterprise setup
+        if (key.ssl() && settings.http2()) {
+            options
+                .setProtocolVersion(HttpVersion.HTTP_2)
+                .setUseAlpn(true)
+                .setHttp2KeepAliveTimeout(settings.keepAliveTimeout())
+                .setHttp2MultiplexingLimit(settings.http2MultiplexingLimit());
+        }
+
+        if (key.proxy() != null) {
+            options.setProxyOptions(key.proxy().toProxyOptions());
+        }
+
+        final PoolOptions poolOptions = new PoolOptions().setHttp1MaxSize(settings.poolMaxSize()).setCleanerPeriod(POOL_CLEANER_PERIOD_MS);
+
+        log.debug("Creating HTTP client for {}", key);
+        return new PooledClient(vertx.createHttpClient(options, poolOptions));
+    }
+
+    private synchronized void scheduleEviction() {
+        if (evictionTimerId == -1) {
+            evictionTimerId = vertx.setPeriodic(EVICTION_PERIOD_MS, timerId -> evictIdleClients());
+        }
+    }
+
+    private synchronized void evictIdleClients() {
+        final long now = System.currentTimeMillis();
+        for (ClientKey key : List.copyOf(clients.keySet())) {
+            final PooledClient[] evicted = new PooledClient[1];
+            clients.computeIfPresent(key, (k, pooledClient) -> {
+                if (pooledClient.users.get() == 0 && now - pooledClient.lastUsed > k.settings().clientIdleTimeout()) {
+                    evicted[0] = pooledClient;
+                    return null;
+                }
+                return pooledClient;
+            });
+            if (evicted[0] != null) {
+                closeClient(key, evicted[0]);
+            }
+        }
+
+        if (clients.isEmpty() && evictionTimerId != -1) {
+            vertx.cancelTimer(evictionTimerId);
+            evictionTimerId = -1;
+        }
+    }
+
+    private void closeClient(ClientKey key, PooledClient pooledClient) {
+        log.debug("Closing HTTP client for {}", key);
+        pooledClient.httpClient.close().onFailure(throwable -> log.warn("Unable to close HTTP client for {}", key, throwable));
+    }
+
+    /**
+     * Identifies a client: requests sharing the same key share the same connection pool.
+     */
+    public record ClientKey(boolean ssl, String host, int port, ProxySettings proxy, HttpClientSettings settings) {}
+
+    private static final class PooledClient {
+
+        private final HttpClient httpClient;
+        private final AtomicInteger users = new AtomicInteger();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledClient(HttpClient httpClient) {
+            this.httpClient = httpClient;
+        }
+    }
+}
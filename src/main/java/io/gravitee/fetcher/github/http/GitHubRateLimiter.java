@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.gravitee.fetcher.github.RateLimitExceededException;
+import io.gravitee.fetcher.github.cache.CacheKeys;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.shareddata.Shareable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.CustomLog;
+
+/**
+ * Schedules the calls to GitHub according to the rate limit of each token, per host.
+ *
+ * The budget announced by the <code>X-RateLimit-Remaining</code> and <code>X-RateLimit-Reset</code> headers is tracked: once it runs
+ * low, requests are spread evenly until the reset and, once exhausted, they are queued until the reset. A secondary rate limit response
+ * (<code>429</code>, or <code>403</code> with <code>Retry-After</code> or an exhausted budget) blocks the token for the announced delay.
+ * A request that would have to wait longer than the maximum accepted wait fails fast with a {@link RateLimitExceededException}.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class GitHubRateLimiter implements Shareable {
+
+    private static final String COMPONENT_NAME = "rate-limiter";
+    private static final String ANONYMOUS = "anonymous";
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String RESET_HEADER = "X-RateLimit-Reset";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    // GitHub asks to wait at least one minute after a secondary rate limit when it does not tell for how long
+    private static final long DEFAULT_RETRY_AFTER_MS = 60_000;
+
+    private final Vertx vertx;
+    private final long maxWait;
+    private final int lowWatermark;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    GitHubRateLimiter(Vertx vertx, long maxWait, int lowWatermark) {
+        this.vertx = vertx;
+        this.maxWait = maxWait;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * @param maxWait maximum time in milliseconds a request may be delayed, beyond which it fails fast
+     * @param lowWatermark remaining budget below which requests are spread until the reset
+     */
+    public static GitHubRateLimiter get(Vertx vertx, long maxWait, int lowWatermark) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> new GitHubRateLimiter(vertx, maxWait, lowWatermark));
+    }
+
+    /**
+     * Budgets are tracked per host and per token, the token being hashed so that it is never kept in clear.
+     */
+    public static String key(String host, String authorization) {
+        return host + "#" + (authorization == null ? ANONYMOUS : CacheKeys.sha256(authorization));
+    }
+
+    /**
+     * @return a future completed once the request is allowed to be sent
+     */
+    public Future<Void> acquire(String key) {
+        final long delay = budgets.computeIfAbsent(key, k -> new Budget()).reserve(System.currentTimeMillis(), lowWatermark);
+        if (delay <= 0) {
+            return Future.succeededFuture();
+        }
+        if (delay > maxWait) {
+            return Future.failedFuture(
+                new RateLimitExceededException("GitHub rate limit exceeded, requests are accepted again in " + delay + "ms", delay)
+            );
+        }
+        log.debug("Delaying GitHub request by {}ms to stay within the rate limit", delay);
+        final Promise<Void> promise = Promise.promise();
+        vertx.setTimer(delay, id -> promise.complete());
+        return promise.future();
+    }
+
+    /**
+     * Records the budget announced by a response.
+     *
+     * @return the delay in milliseconds before the request may be replayed if the response is a rate limit one, <code>-1</code> otherwise
+     */
+    public long update(String key, HttpClientResponse response) {
+        final long now = System.currentTimeMillis();
+        final Long remaining = parseLong(response.getHeader(REMAINING_HEADER));
+        final Long reset = parseLong(response.getHeader(RESET_HEADER));
+        final Long retryAfter = parseLong(response.getHeader(RETRY_AFTER_HEADER));
+        final Budget budget = budgets.computeIfAbsent(key, k -> new Budget());
+        if (remaining != null && reset != null) {
+            budget.update(remaining, reset * 1000);
+        }
+
+        final boolean exhausted = remaining != null && remaining == 0;
+        final boolean rateLimited = response.statusCode() == 429 || (response.statusCode() == 403 && (retryAfter != null || exhausted));
+        if (!rateLimited) {
+            return -1;
+        }
+        final long blockedUntil;
+        if (retryAfter != null) {
+            blockedUntil = now + retryAfter * 1000;
+        } else if (reset != null && exhausted) {
+            blockedUntil = reset * 1000;
+        } else {
+            blockedUntil = now + DEFAULT_RETRY_AFTER_MS;
+        }
+        budget.block(blockedUntil);
+        log.warn("GitHub rate limit reached (status {}), requests are suspended for {}ms", response.statusCode(), blockedUntil - now);
+        return Math.max(0, blockedUntil - now);
+    }
+
+    public long maxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @return the last known remaining budget of each host and token, meant to be published as a metric
+     */
+    public Map<String, Long> remaining() {
+        final Map<String, Long> remaining = new HashMap<>();
+        budgets.forEach((key, budget) -> remaining.put(key, budget.remaining()));
+        return remaining;
+    }
+
+    /**
+     * @return the lowest remaining budget announced by the given host among the tokens used to call it, <code>NaN</code> if unknown
+     */
+    public double remaining(String host) {
+        final String prefix = host + "#";
+        return budgets
+            .entrySet()
+            .stream()
+            .filter(entry -> entry.getKey().startsWith(prefix) && entry.getValue().remaining() >= 0)
+            .mapToDouble(entry -> entry.getValue().remaining())
+            .min()
+            .orElse(Double.NaN);
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Budget {
+
+        // -1 as long as GitHub did not announce any budget
+        private long remaining = -1;
+        private long resetAt;
+        private long blockedUntil;
+        private long nextSlot;
+
+        synchronized long reserve(long now, int lowWatermark) {
+            if (now < blockedUntil) {
+                return blockedUntil - now;
+            }
+            if (remaining < 0 || resetAt <= now) {
+                return 0;
+            }
+            if (remaining == 0) {
+                return resetAt - now;
+            }
+            long delay = 0;
+            if (remaining <= lowWatermark) {
+                final long start = Math.max(now, nextSlot);
+                nextSlot = start + (resetAt - now) / remaining;
+                delay = start - now;
+            }
+            remaining--;
+            return delay;
+        }
+
+        synchronized void update(long remaining, long resetAt) {
+            this.remaining = remaining;
+            this.resetAt = resetAt;
+        }
+
+        synchronized void block(long blockedUntil) {
+            this.blockedUntil = Math.max(this.blockedUntil, blockedUntil);
+        }
+
+        synchronized long remaining() {
+            return remaining;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.vertx.core.buffer.Buffer;
+import java.io.InputStream;
+
+/**
+ * Successful response of GitHub, either received or served from the validator cache after a <code>304 Not Modified</code>.
+ *
+ * @param body response body, <code>null</code> if it has been spooled to a file
+ * @param etag <code>ETag</code> of the response, <code>null</code> if none was sent
+ * @param spooled response body written to a temporary file, <code>null</code> if it is held in memory
+ * @param stale whether the response is the last one received, served because GitHub could not be called
+ *
+ * @author GraviteeSource Team
+ */
+public record GitHubResponse(Buffer body, String etag, SpooledBody spooled, boolean stale) {
+    public GitHubResponse(Buffer body, String etag) {
+        this(body, etag, null, false);
+    }
+
+    public GitHubResponse(Buffer body, String etag, SpooledBody spooled) {
+        this(body, etag, spooled, false);
+    }
+
+    public boolean isSpooled() {
+        return spooled != null;
+    }
+
+    public boolean isEmpty() {
+        return spooled != null ? spooled.length() == 0 : body == null || body.length() == 0;
+    }
+
+    public InputStream bodyAsStream() {
+        return spooled != null ? spooled.open() : new BufferInputStream(body);
+    }
+}
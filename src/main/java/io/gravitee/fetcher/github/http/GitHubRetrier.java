@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.CustomLog;
+
+/**
+ * Replays the calls to GitHub failing with a transient error, according to a {@link RetryPolicy}.
+ *
+ * Waiting for the next attempt relies on a Vert.x timer, no thread is blocked in the meantime. Retries and exhausted calls are counted
+ * node-wide.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class GitHubRetrier implements Shareable {
+
+    private static final String COMPONENT_NAME = "retrier";
+
+    private final Vertx vertx;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    GitHubRetrier(Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    public static GitHubRetrier get(Vertx vertx) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> new GitHubRetrier(vertx));
+    }
+
+    public <T> Future<T> execute(RetryPolicy policy, Supplier<Future<T>> attempt) {
+        return execute(policy, attempt, 1, System.currentTimeMillis() + policy.deadline());
+    }
+
+    private <T> Future<T> execute(RetryPolicy policy, Supplier<Future<T>> attempt, int attemptNumber, long deadlineAt) {
+        Future<T> result;
+        try {
+            result = attempt.get();
+        } catch (RuntimeException ex) {
+            result = Future.failedFuture(ex);
+        }
+        return result.recover(throwable -> {
+            if (!policy.isRetryable(throwable)) {
+                return Future.failedFuture(throwable);
+            }
+            final long delay = policy.backoff(attemptNumber);
+            if (attemptNumber >= policy.maxAttempts() || System.currentTimeMillis() + delay > deadlineAt) {
+                exhausted.incrementAndGet();
+                log.debug("Giving up calling GitHub after {} attempts: {}", attemptNumber, throwable.getMessage());
+                return Future.failedFuture(throwable);
+            }
+
+            retries.incrementAndGet();
+            log.debug("Call to GitHub failed ({}), retrying in {}ms", throwable.getMessage(), delay);
+            final Promise<T> promise = Promise.promise();
+            // A Vert.x timer needs a delay of at least 1ms
+            vertx.setTimer(Math.max(1, delay), id -> execute(policy, attempt, attemptNumber + 1, deadlineAt).onComplete(promise));
+            return promise.future();
+        });
+    }
+
+    public long retryCount() {
+        return retries.get();
+    }
+
+    public long exhaustedCount() {
+        return exhausted.get();
+    }
+}
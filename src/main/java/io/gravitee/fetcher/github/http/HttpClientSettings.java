@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+/**
+ * Node-level settings of the HTTP clients used to call GitHub.
+ *
+ * @param timeout connect and request timeout, in milliseconds
+ * @param poolMaxSize maximum number of HTTP/1.x connections kept per client
+ * @param http2 whether HTTP/2 should be negotiated (through ALPN) on TLS connections
+ * @param http2MultiplexingLimit maximum number of concurrent streams per HTTP/2 connection, {@code -1} to use the server value
+ * @param keepAliveTimeout time after which an unused pooled connection is closed, in seconds
+ * @param clientIdleTimeout time after which an unused client (and its pool) is closed, in milliseconds
+ *
+ * @author GraviteeSource Team
+ */
+public record HttpClientSettings(
+    int timeout,
+    int poolMaxSize,
+    boolean http2,
+    int http2MultiplexingLimit,
+    int keepAliveTimeout,
+    long clientIdleTimeout
+) {}
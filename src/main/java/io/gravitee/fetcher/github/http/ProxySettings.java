@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.vertx.core.net.ProxyOptions;
+import io.vertx.core.net.ProxyType;
+
+/**
+ * Proxy used to reach GitHub. Being a value object, it can safely be part of a {@link GitHubHttpClientRegistry} key.
+ *
+ * @author GraviteeSource Team
+ */
+public record ProxySettings(ProxyType type, String host, int port, String username, String password) {
+    public ProxyOptions toProxyOptions() {
+        return new ProxyOptions().setType(type).setHost(host).setPort(port).setUsername(username).setPassword(password);
+    }
+
+    @Override
+    public String toString() {
+        return "ProxySettings[type=" + type + ", host=" + host + ", port=" + port + ", username=" + username + "]";
+    }
+}
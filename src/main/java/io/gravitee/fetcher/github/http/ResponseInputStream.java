@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the body of a response as a blocking {@link InputStream}, to be consumed from a worker thread while the body is still being
+ * received on the event loop.
+ *
+ * At most <code>maxBufferedChunks</code> chunks are queued: the response is paused beyond that and resumed once the reader caught up, so
+ * that memory stays bounded whatever the size of the body. Closing the stream before the end of the body resets the request.
+ *
+ * @author GraviteeSource Team
+ */
+public class ResponseInputStream extends InputStream {
+
+    private static final Object END = new Object();
+
+    private final HttpClientResponse response;
+    private final Context context;
+    private final long readTimeout;
+    private final int maxBufferedChunks;
+    private final LinkedBlockingQueue<Object> chunks = new LinkedBlockingQueue<>();
+    private Buffer current;
+    private int position;
+    private boolean ended;
+    private volatile boolean paused;
+
+    /**
+     * Must be called from the context of the response, before returning to the event loop.
+     *
+     * @param readTimeout maximum time to wait for the next chunk, in milliseconds
+     */
+    public ResponseInputStream(HttpClientResponse response, long readTimeout, int maxBufferedChunks) {
+        this.response = response;
+        this.context = Vertx.currentContext();
+        this.readTimeout = readTimeout;
+        this.maxBufferedChunks = maxBufferedChunks;
+
+        response.handler(chunk -> {
+            chunks.add(chunk);
+            if (chunks.size() >= maxBufferedChunks && !paused) {
+                paused = true;
+                response.pause();
+            }
+        });
+        response.exceptionHandler(chunks::add);
+        response.endHandler(v -> chunks.add(END));
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || position == current.length()) {
+            if (ended) {
+                return -1;
+            }
+            next();
+        }
+        final int count = Math.min(len, current.length() - position);
+        current.getBytes(position, position + count, b, off);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        if (!ended) {
+            ended = true;
+            runOnContext(() -> response.request().reset());
+        }
+        chunks.clear();
+    }
+
+    private void next() throws IOException {
+        final Object chunk;
+        try {
+            chunk = chunks.poll(readTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading GitHub response");
+        }
+
+        if (chunk == null) {
+            throw new IOException("Timed out after " + readTimeout + "ms waiting for GitHub response");
+        } else if (chunk == END) {
+            ended = true;
+        } else if (chunk instanceof Throwable throwable) {
+            ended = true;
+            throw new IOException(throwable.getMessage(), throwable);
+        } else {
+            current = (Buffer) chunk;
+            position = 0;
+            if (paused && chunks.size() <= maxBufferedChunks / 2) {
+                runOnContext(() -> {
+                    paused = false;
+                    response.resume();
+                });
+            }
+        }
+    }
+
+    private void runOnContext(Runnable action) {
+        if (context != null) {
+            context.runOnContext(v -> action.run());
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Which failures of a call to GitHub are transient and how long to wait before trying again.
+ *
+ * @param maxAttempts maximum number of attempts, the first one included
+ * @param initialDelay upper bound in milliseconds of the delay before the first retry, doubled at each attempt
+ * @param maxDelay upper bound in milliseconds of the delay before any retry
+ * @param deadline time in milliseconds after the first attempt beyond which no retry is scheduled
+ * @param statusCodes response status codes worth a retry
+ * @param exceptions names of the exception classes worth a retry, their subclasses included
+ *
+ * @author GraviteeSource Team
+ */
+public record RetryPolicy(
+    int maxAttempts,
+    long initialDelay,
+    long maxDelay,
+    long deadline,
+    Set<Integer> statusCodes,
+    Set<String> exceptions
+) {
+    public boolean isRetryable(int statusCode) {
+        return statusCodes.contains(statusCode);
+    }
+
+    public boolean isRetryable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetryableStatusException) {
+                return true;
+            }
+            for (Class<?> type = cause.getClass(); type != null; type = type.getSuperclass()) {
+                if (exceptions.contains(type.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exponential backoff with full jitter, so that the fetchers failing at the same time do not retry at the same time.
+     *
+     * @param attempt number of the attempt that just failed, starting at 1
+     */
+    public long backoff(int attempt) {
+        final long bound = Math.min(maxDelay, initialDelay << Math.min(attempt - 1, 30));
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+}
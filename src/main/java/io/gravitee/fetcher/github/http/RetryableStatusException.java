@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+/**
+ * GitHub answered with a status listed by the {@link RetryPolicy}.
+ *
+ * @author GraviteeSource Team
+ */
+public class RetryableStatusException extends RuntimeException {
+
+    private final int statusCode;
+    private final String statusMessage;
+
+    public RetryableStatusException(String url, int statusCode, String statusMessage) {
+        super("Unable to fetch '" + url + "'. Status code: " + statusCode + ". Message: " + statusMessage);
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.http;
+
+import io.gravitee.fetcher.github.ResponseTooLargeException;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.streams.ReadStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.CustomLog;
+
+/**
+ * Response body written to a temporary file as it is received, so that a large file never has to be held in the heap.
+ *
+ * The body is read through streams backed by a {@link FileChannel}, any number of them being opened until the body is released by its
+ * owner. The file is deleted once the body has been released and every stream has been closed, or once all of them have been garbage
+ * collected, should a stream never be closed.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public final class SpooledBody {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+    private static final String PREFIX = "gravitee-github-";
+    private static final String SUFFIX = ".body";
+
+    private final Path file;
+    private final long length;
+    private final Cleaner.Cleanable cleanable;
+    private int openStreams;
+    private boolean released;
+
+    private SpooledBody(Path file, long length) {
+        this.file = file;
+        this.length = length;
+        this.cleanable = CLEANER.register(this, new Deletion(file));
+    }
+
+    /**
+     * Aggregates the stream in memory as long as it is not larger than the threshold, and writes it to a new temporary file once it
+     * grows past it, so that a body of unknown length is only spooled when it is actually large.
+     *
+     * @param threshold maximum number of bytes held in memory, <code>0</code> to write any non empty body to a file
+     * @param directory directory of the temporary file, <code>null</code> for the default temporary directory
+     * @param maxLength maximum number of bytes received, the read failing with a {@link ResponseTooLargeException} beyond, <code>0</code>
+     *     for no limit
+     * @return the body, held in memory by {@link GitHubResponse#body()} or in a file by {@link GitHubResponse#spooled()}
+     */
+    public static Future<GitHubResponse> read(
+        Vertx vertx,
+        ReadStream<Buffer> stream,
+        String etag,
+        long threshold,
+        String directory,
+        long maxLength
+    ) {
+        final Promise<GitHubResponse> promise = Promise.promise();
+        final Buffer buffered = Buffer.buffer();
+        stream.exceptionHandler(promise::tryFail);
+        stream.endHandler(v -> promise.tryComplete(new GitHubResponse(buffered, etag)));
+        stream.handler(chunk -> {
+            if (promise.future().isComplete()) {
+                return;
+            }
+            final long received = (long) buffered.length() + chunk.length();
+            if (maxLength > 0 && received > maxLength) {
+                promise.tryFail(tooLarge(received, maxLength));
+                return;
+            }
+            buffered.appendBuffer(chunk);
+            if (received > threshold) {
+                // The rest of the body is written after what has been received so far
+                stream.handler(null);
+                stream.endHandler(null);
+                write(vertx, stream, directory, maxLength, buffered)
+                    .map(spooled -> new GitHubResponse(null, etag, spooled))
+                    .onComplete(ar -> promise.handle(ar));
+            }
+        });
+        return promise.future();
+    }
+
+    /**
+     * Writes what has been received of the stream then the rest of it to a new temporary file, pausing the stream whenever the file
+     * cannot keep up.
+     */
+    private static Future<SpooledBody> write(Vertx vertx, ReadStream<Buffer> stream, String directory, long maxLength, Buffer received) {
+        // Nothing must be received before the file is ready
+        stream.pause();
+        final Future<String> created = directory == null
+            ? vertx.fileSystem().createTempFile(PREFIX, SUFFIX, (String) null)
+            : vertx.fileSystem().createTempFile(directory, PREFIX, SUFFIX, (String) null);
+        return created
+            .compose(path ->
+                vertx
+                    .fileSystem()
+                    .open(path, new OpenOptions().setWrite(true))
+                    .compose(file ->
+                        copy(stream, file, maxLength, received).transform(copied ->
+                            file
+                                .close()
+                                .compose(closed ->
+                                    copied.succeeded() ? Future.<Void>succeededFuture() : Future.<Void>failedFuture(copied.cause())
+                                )
+                        )
+                    )
+                    .compose(ignored -> vertx.fileSystem().props(path))
+                    .map(props -> new SpooledBody(Path.of(path), props.size()))
+                    .onFailure(throwable -> vertx.fileSystem().delete(path))
+            )
+            // Whatever is left of the body is drained so that the connection can go back to the pool
+            .onFailure(throwable -> stream.resume());
+    }
+
+    private static Future<Void> copy(ReadStream<Buffer> stream, AsyncFile file, long maxLength, Buffer alreadyReceived) {
+        final Promise<Void> promise = Promise.promise();
+        final long[] received = { alreadyReceived.length() };
+        if (alreadyReceived.length() > 0) {
+            file.write(alreadyReceived);
+        }
+        stream.exceptionHandler(promise::tryFail);
+        file.exceptionHandler(promise::tryFail);
+        stream.endHandler(v -> promise.tryComplete());
+        stream.handler(chunk -> {
+            if (promise.future().isComplete()) {
+                return;
+            }
+            received[0] += chunk.length();
+            if (maxLength > 0 && received[0] > maxLength) {
+                promise.tryFail(tooLarge(received[0], maxLength));
+                return;
+            }
+            file.write(chunk);
+            if (file.writeQueueFull()) {
+                stream.pause();
+                file.drainHandler(v -> stream.resume());
+            }
+        });
+        stream.resume();
+        return promise.future();
+    }
+
+    private static ResponseTooLargeException tooLarge(long received, long maxLength) {
+        return new ResponseTooLargeException("Response body is larger than the maximum of " + maxLength + " bytes", received, maxLength);
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return a new stream reading the body from its beginning
+     */
+    public synchronized InputStream open() {
+        if (released && openStreams == 0) {
+            throw new IllegalStateException("Spooled body " + file + " has already been released");
+        }
+        try {
+            final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            openStreams++;
+            return new ChannelInputStream(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gives up the ownership of the body: the file is deleted as soon as no stream reads it anymore.
+     */
+    public synchronized void release() {
+        released = true;
+        if (openStreams == 0) {
+            cleanable.clean();
+        }
+    }
+
+    private synchronized void streamClosed() {
+        openStreams--;
+        if (released && openStreams == 0) {
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Deletes the file, without referencing the body so that it can be garbage collected.
+     */
+    private record Deletion(Path file) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Unable to delete temporary file {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Holds a reference to the body, which is therefore not deleted while the stream is reachable.
+     */
+    private final class ChannelInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private boolean closed;
+
+        private ChannelInputStream(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            return channel.read(ByteBuffer.wrap(b, off, len));
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long position = channel.position();
+            final long count = Math.max(0, Math.min(n, length - position));
+            channel.position(position + count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - channel.position()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                streamClosed();
+            }
+        }
+    }
+}
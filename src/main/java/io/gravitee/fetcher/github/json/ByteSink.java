@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.json;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Collects decoded bytes in an array sized upfront from the size announced by GitHub, so that the content is not copied again once
+ * fully decoded.
+ *
+ * @author GraviteeSource Team
+ */
+class ByteSink extends OutputStream {
+
+    private byte[] bytes;
+    private int count;
+
+    ByteSink(int expectedSize) {
+        this.bytes = new byte[Math.max(expectedSize, 32)];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        bytes[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, bytes, count, len);
+        count += len;
+    }
+
+    byte[] toByteArray() {
+        return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.json;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the response of the GitHub <code>contents</code> API as a stream of tokens.
+ *
+ * The base64 <code>content</code> field is decoded on the fly by the parser, straight into an array presized from the <code>size</code>
+ * field GitHub sends before it, so that the encoded content is never materialized as a String. The size is not trusted beyond the 1MB
+ * GitHub inlines in base64, larger files coming with an empty content encoded as <code>none</code>. Only the scalar fields describing the
+ * file are kept as metadata, links and unknown fields are skipped without being bound.
+ *
+ * @author GraviteeSource Team
+ */
+public class GitHubContentsReader {
+
+    private static final String CONTENT_FIELD = "content";
+    private static final String SIZE_FIELD = "size";
+    private static final String ENCODING_FIELD = "encoding";
+    private static final String BASE64_ENCODING = "base64";
+    private static final int MAX_PRESIZED_CONTENT = 1024 * 1024;
+    private static final Set<String> METADATA_FIELDS = Set.of(
+        "type",
+        "encoding",
+        "size",
+        "name",
+        "path",
+        "sha",
+        "url",
+        "git_url",
+        "html_url",
+        "download_url"
+    );
+
+    private final ObjectMapper mapper;
+
+    public GitHubContentsReader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    public Contents read(InputStream body) throws IOException {
+        try (JsonParser parser = mapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "GitHub contents response is not a JSON object");
+            }
+
+            final Map<String, Object> metadata = new LinkedHashMap<>();
+            byte[] content = null;
+            int size = 0;
+            boolean base64 = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.currentName();
+                final JsonToken token = parser.nextToken();
+                if (CONTENT_FIELD.equals(name)) {
+                    if (token == JsonToken.VALUE_STRING) {
+                        final ByteSink sink = new ByteSink(base64 ? Math.min(size, MAX_PRESIZED_CONTENT) : 0);
+                        parser.readBinaryValue(Base64Variants.MIME, sink);
+                        content = sink.toByteArray();
+                    } else {
+                        parser.skipChildren();
+                    }
+                } else if (METADATA_FIELDS.contains(name) && token.isScalarValue()) {
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        final int value = parser.getIntValue();
+                        if (SIZE_FIELD.equals(name)) {
+                            size = value;
+                        }
+                        metadata.put(name, value);
+                    } else if (token != JsonToken.VALUE_NULL) {
+                        if (ENCODING_FIELD.equals(name)) {
+                            base64 = BASE64_ENCODING.equals(parser.getText());
+                        }
+                        metadata.put(name, token.isBoolean() ? parser.getBooleanValue() : parser.getText());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Contents(content, metadata);
+        }
+    }
+
+    /**
+     * @param content decoded content, <code>null</code> if the response did not hold any
+     * @param metadata scalar fields describing the file
+     */
+    public record Contents(byte[] content, Map<String, Object> metadata) {}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.json;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.gravitee.fetcher.github.graphql.BlobsQuery;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Readers of the GitHub payloads, built once per {@link ObjectMapper} and bound to compact records, so that a response is never
+ * turned into a JSON tree or a generic map first.
+ *
+ * @author GraviteeSource Team
+ */
+public final class GitHubReaders {
+
+    private static final Map<ObjectMapper, GitHubReaders> READERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final GitHubContentsReader contents;
+    private final GitHubTreeReader tree;
+    private final ObjectReader commits;
+    private final ObjectReader error;
+    private final ObjectReader blobs;
+    private final ObjectReader comparison;
+
+    private GitHubReaders(ObjectMapper mapper) {
+        this.contents = new GitHubContentsReader(mapper);
+        this.tree = new GitHubTreeReader(mapper);
+        this.commits = lenient(mapper.readerForListOf(Commit.class));
+        this.error = lenient(mapper.readerFor(Error.class));
+        this.blobs = lenient(mapper.readerFor(BlobsQuery.Response.class));
+        this.comparison = lenient(mapper.readerFor(Comparison.class));
+    }
+
+    public static GitHubReaders of(ObjectMapper mapper) {
+        return READERS.computeIfAbsent(mapper, GitHubReaders::new);
+    }
+
+    private static ObjectReader lenient(ObjectReader reader) {
+        return reader.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public GitHubContentsReader contents() {
+        return contents;
+    }
+
+    public GitHubTreeReader tree() {
+        return tree;
+    }
+
+    public List<Commit> readCommits(InputStream body) throws IOException {
+        return commits.readValue(body);
+    }
+
+    /**
+     * @return the error described by a GitHub error response, <code>null</code> if the body is not one
+     */
+    public Error readError(byte[] body) {
+        try {
+            return error.readValue(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public BlobsQuery.Response readBlobs(InputStream body) throws IOException {
+        return blobs.readValue(body);
+    }
+
+    public Comparison readComparison(InputStream body) throws IOException {
+        return comparison.readValue(body);
+    }
+
+    public record Commit(String sha) {}
+
+    /**
+     * @param status <code>ahead</code>, <code>behind</code>, <code>diverged</code> or <code>identical</code>
+     */
+    public record Comparison(String status, List<ChangedFile> files) {}
+
+    /**
+     * @param status <code>added</code>, <code>removed</code>, <code>modified</code>, <code>renamed</code>, <code>copied</code>,
+     *     <code>changed</code> or <code>unchanged</code>
+     */
+    public record ChangedFile(String filename, String status, @JsonProperty("previous_filename") String previousFilename) {}
+
+    public record Error(String message, @JsonProperty("documentation_url") String documentationUrl) {}
+}
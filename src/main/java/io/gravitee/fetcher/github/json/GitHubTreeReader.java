@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads the response of the GitHub <code>git/trees</code> API as a stream of tokens.
+ *
+ * Entries are filtered while the <code>tree</code> array is read, only the paths of the matching ones are kept: the memory needed to
+ * list a repository depends on the number of matching entries rather than on the size of the repository.
+ *
+ * @author GraviteeSource Team
+ */
+public class GitHubTreeReader {
+
+    private static final String TREE_FIELD = "tree";
+    private static final String TRUNCATED_FIELD = "truncated";
+    private static final String BLOB_TYPE = "blob";
+    private static final String TREE_TYPE = "tree";
+
+    private final ObjectMapper mapper;
+
+    public GitHubTreeReader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * @param blobFilter paths of the files to keep
+     * @param treeFilter paths of the sub-trees to keep
+     */
+    public Tree read(InputStream body, Predicate<String> blobFilter, Predicate<String> treeFilter) throws IOException {
+        try (JsonParser parser = mapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "GitHub tree response is not a JSON object");
+            }
+
+            Boolean truncated = null;
+            final List<String> blobs = new ArrayList<>();
+            final List<Entry> trees = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.currentName();
+                final JsonToken token = parser.nextToken();
+                if (TREE_FIELD.equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readEntry(parser, blobFilter, treeFilter, blobs, trees);
+                    }
+                } else if (TRUNCATED_FIELD.equals(name)) {
+                    truncated = parser.getValueAsBoolean(false);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Tree(truncated, blobs, trees);
+        }
+    }
+
+    private static void readEntry(
+        JsonParser parser,
+        Predicate<String> blobFilter,
+        Predicate<String> treeFilter,
+        List<String> blobs,
+        List<Entry> trees
+    ) throws IOException {
+        String path = null;
+        String type = null;
+        String sha = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "path" -> path = parser.getValueAsString();
+                case "type" -> type = parser.getValueAsString();
+                case "sha" -> sha = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        if (path == null) {
+            return;
+        }
+        if (BLOB_TYPE.equals(type) && blobFilter.test(path)) {
+            blobs.add(path);
+        } else if (TREE_TYPE.equals(type) && treeFilter.test(path)) {
+            trees.add(new Entry(path, sha));
+        }
+    }
+
+    /**
+     * @param truncated whether GitHub truncated the tree, <code>null</code> if the response did not tell
+     * @param blobs paths of the matching files
+     * @param trees matching sub-trees
+     */
+    public record Tree(Boolean truncated, List<String> blobs, List<Entry> trees) {}
+
+    public record Entry(String path, String sha) {}
+}
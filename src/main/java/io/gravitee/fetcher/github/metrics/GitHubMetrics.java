@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.metrics;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.gravitee.fetcher.github.cache.BlobStore;
+import io.gravitee.fetcher.github.cache.ContentCache;
+import io.gravitee.fetcher.github.http.GitHubCircuitBreakers;
+import io.gravitee.fetcher.github.http.GitHubRateLimiter;
+import io.gravitee.fetcher.github.http.GitHubRetrier;
+import io.gravitee.fetcher.github.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Metrics of the calls made to GitHub, reported through the Micrometer registry of the node.
+ *
+ * Every meter is tagged with the GitHub host and the repository. To keep the cardinality bounded, only the first
+ * {@link #MAX_REPOSITORIES} repositories seen are tagged with their name, the following ones are gathered under {@link #OTHER}. The
+ * histograms, which publish dozens of buckets each, are only tagged with the host.
+ *
+ * @author GraviteeSource Team
+ */
+public class GitHubMetrics implements Shareable, AutoCloseable {
+
+    public static final String PREFIX = "gravitee.fetcher.github.";
+    public static final String OTHER = "other";
+
+    static final int MAX_REPOSITORIES = 100;
+
+    private static final String COMPONENT_NAME = "metrics";
+    private static final String HOST_TAG = "host";
+    private static final String REPOSITORY_TAG = "repository";
+    // Only provided by the nodes running with metrics
+    private static final boolean VERTX_METRICS_PRESENT = ClassUtils.isPresent(
+        "io.vertx.micrometer.backends.BackendRegistries",
+        GitHubMetrics.class.getClassLoader()
+    );
+
+    private final MeterRegistry registry;
+    private final Set<String> repositories = ConcurrentHashMap.newKeySet();
+    private final Set<String> bound = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    GitHubMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        Gauge.builder(PREFIX + "requests.inflight", inFlight, AtomicInteger::get)
+            .description("Number of requests sent to GitHub and not answered yet")
+            .register(registry);
+    }
+
+    /**
+     * Node-wide metrics, reported to the Micrometer registry of Vert.x. When the node runs without metrics, they are kept in memory.
+     */
+    public static GitHubMetrics get(Vertx vertx) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () -> {
+            final MeterRegistry registry = VERTX_METRICS_PRESENT ? VertxMetrics.registry() : null;
+            return new GitHubMetrics(registry != null ? registry : new SimpleMeterRegistry());
+        });
+    }
+
+    /**
+     * Only loaded once Vert.x metrics are known to be on the classpath.
+     */
+    private static final class VertxMetrics {
+
+        private static MeterRegistry registry() {
+            return BackendRegistries.getDefaultNow();
+        }
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Removes the meters from the registry of the node, their gauges and function counters referencing the shared components.
+     */
+    @Override
+    public void close() {
+        registry.getMeters().stream().filter(meter -> meter.getId().getName().startsWith(PREFIX)).forEach(registry::remove);
+        bound.clear();
+    }
+
+    /**
+     * @return the tags of the calls made to the given repository
+     */
+    public Tags tags(String host, String owner, String repository) {
+        final String name = (owner + "/" + repository).toLowerCase(Locale.ROOT);
+        final boolean tracked = repositories.contains(name) || (repositories.size() < MAX_REPOSITORIES && repositories.add(name));
+        return Tags.of(HOST_TAG, host, REPOSITORY_TAG, tracked ? name : OTHER);
+    }
+
+    /**
+     * Times a fetcher operation, from its call to the completion of its result.
+     */
+    public <T> Future<T> timeOperation(String operation, Tags tags, Supplier<Future<T>> supplier) {
+        final long start = System.nanoTime();
+        return supplier
+            .get()
+            .onComplete(ar ->
+                Timer.builder(PREFIX + "operation.duration")
+                    .description("Duration of the fetcher operations")
+                    .tags(tags)
+                    .tag("operation", operation)
+                    .tag("outcome", ar.succeeded() ? "success" : exceptionName(ar.cause()))
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS)
+            );
+    }
+
+    /**
+     * Records the duration of a phase of a call to GitHub: <code>connect</code>, <code>ttfb</code>, <code>download</code> or
+     * <code>decode</code>.
+     */
+    public void recordPhase(String phase, Tags tags, long startNanos) {
+        Timer.builder(PREFIX + "request.duration")
+            .description("Duration of each phase of the calls to GitHub")
+            .tags(tags)
+            .tag("phase", phase)
+            .register(registry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void requestEnded() {
+        inFlight.decrementAndGet();
+    }
+
+    public void countResponse(Tags tags, int statusCode) {
+        Counter.builder(PREFIX + "responses")
+            .description("Number of responses received from GitHub, by status code")
+            .tags(tags)
+            .tag("status", String.valueOf(statusCode))
+            .register(registry)
+            .increment();
+    }
+
+    public void countError(Tags tags, Throwable throwable) {
+        Counter.builder(PREFIX + "errors")
+            .description("Number of calls to GitHub which failed without a response, by exception type")
+            .tags(tags)
+            .tag("exception", exceptionName(throwable))
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * @param reason check which rejected the fetch: <code>content-length</code>, <code>size</code> or <code>stream</code>
+     */
+    public void countRejected(Tags tags, String reason) {
+        Counter.builder(PREFIX + "responses.rejected")
+            .description("Number of fetches rejected because the file or response is larger than the maximum size, by check")
+            .tags(tags)
+            .tag("reason", reason)
+            .register(registry)
+            .increment();
+    }
+
+    public void recordResponseSize(Tags tags, long bytes) {
+        DistributionSummary.builder(PREFIX + "response.size")
+            .description("Size of the response bodies received from GitHub")
+            .baseUnit("bytes")
+            .tags(tags.stream().filter(tag -> !REPOSITORY_TAG.equals(tag.getKey())).toList())
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(bytes);
+    }
+
+    /**
+     * Publishes the remaining rate limit budget of the given host, once per host.
+     */
+    public void bindRateLimiter(String host, GitHubRateLimiter rateLimiter) {
+        if (bound.add("rate-limiter#" + host)) {
+            Gauge.builder(PREFIX + "ratelimit.remaining", rateLimiter, limiter -> limiter.remaining(host))
+                .description("Lowest remaining rate limit budget announced by GitHub among the tokens in use")
+                .tag(HOST_TAG, host)
+                .register(registry);
+        }
+    }
+
+    /**
+     * Publishes the number of retried and given up calls, once.
+     */
+    public void bindRetrier(GitHubRetrier retrier) {
+        if (bound.add("retrier")) {
+            FunctionCounter.builder(PREFIX + "retries", retrier, GitHubRetrier::retryCount)
+                .description("Number of calls to GitHub retried after a transient failure")
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "retries.exhausted", retrier, GitHubRetrier::exhaustedCount)
+                .description("Number of calls to GitHub given up after the last retry")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Publishes the number of calls rejected by an open circuit breaker, once.
+     */
+    public void bindCircuitBreakers(GitHubCircuitBreakers circuitBreakers) {
+        if (bound.add("circuit-breakers")) {
+            FunctionCounter.builder(PREFIX + "circuitbreaker.rejected", circuitBreakers, GitHubCircuitBreakers::rejectedCount)
+                .description("Number of calls to GitHub rejected by an open circuit breaker")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Publishes the number of requests which joined an identical one already running, once.
+     */
+    public void bindSingleFlight(SingleFlight singleFlight) {
+        if (bound.add("single-flight")) {
+            FunctionCounter.builder(PREFIX + "requests.coalesced", singleFlight, SingleFlight::sharedCount)
+                .description("Number of requests served by an identical request already sent to GitHub")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Publishes the hits and misses of the content cache, once.
+     */
+    public void bindContentCache(ContentCache contentCache) {
+        if (bound.add("content-cache")) {
+            FunctionCounter.builder(PREFIX + "cache.hits", contentCache, ContentCache::hitCount)
+                .description("Number of fetches served by the content cache")
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "cache.misses", contentCache, ContentCache::missCount)
+                .description("Number of fetches not found in the content cache")
+                .register(registry);
+            Gauge.builder(PREFIX + "cache.size", contentCache, ContentCache::sizeInBytes)
+                .description("Total size of the contents held by the content cache")
+                .baseUnit("bytes")
+                .register(registry);
+        }
+    }
+
+    /**
+     * Publishes the hits and misses of the blob store, once.
+     */
+    public void bindBlobStore(BlobStore blobStore) {
+        if (bound.add("blob-store")) {
+            FunctionCounter.builder(PREFIX + "blobs.hits", blobStore, BlobStore::hitCount)
+                .description("Number of blobs served by the blob store instead of being downloaded")
+                .register(registry);
+            FunctionCounter.builder(PREFIX + "blobs.misses", blobStore, BlobStore::missCount)
+                .description("Number of blobs not found in the blob store")
+                .register(registry);
+            Gauge.builder(PREFIX + "blobs.size", blobStore, BlobStore::sizeInBytes)
+                .description("Total size of the blobs held in memory by the blob store")
+                .baseUnit("bytes")
+                .register(registry);
+        }
+    }
+
+    private static String exceptionName(Throwable throwable) {
+        return throwable == null ? "unknown" : throwable.getClass().getSimpleName();
+    }
+}
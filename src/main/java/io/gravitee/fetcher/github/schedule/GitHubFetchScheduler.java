@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.schedule;
+
+import io.gravitee.fetcher.api.Resource;
+import io.gravitee.fetcher.api.ResourceNotFoundException;
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.gravitee.fetcher.github.GitHubFetcherConfiguration;
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.gravitee.fetcher.github.cache.CacheKeys;
+import io.gravitee.fetcher.github.cache.ContentCache;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.CustomLog;
+import org.springframework.scheduling.support.CronExpression;
+
+/**
+ * Schedules the automatic fetches of the pages so that they do not all hit GitHub in the same second.
+ *
+ * The executions computed from the <code>fetchCron</code> are shifted by a jitter within a configurable window. The jitter is derived
+ * from the repository and ref: pages of different repositories are spread over the window, while pages of the same repository and ref
+ * fire together, and are coalesced into a single batch fetch. The number of fetches running at once is capped node-wide by
+ * {@link GitHubFetcher} itself.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class GitHubFetchScheduler implements Shareable, AutoCloseable {
+
+    private static final String COMPONENT_NAME = "fetch-scheduler";
+
+    private final Vertx vertx;
+    private final long jitterWindow;
+    private final long coalesceWindow;
+    private final Map<String, Batch> batches = new HashMap<>();
+    private final Set<ScheduledFetch> scheduledFetches = ConcurrentHashMap.newKeySet();
+
+    GitHubFetchScheduler(Vertx vertx, long jitterWindow, long coalesceWindow) {
+        this.vertx = vertx;
+        this.jitterWindow = jitterWindow;
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    /**
+     * @param jitterWindow width in milliseconds of the window the executions of a same cron are spread over
+     * @param coalesceWindow time in milliseconds during which the fetches of a same repository and ref are gathered in a single batch
+     */
+    public static GitHubFetchScheduler get(Vertx vertx, long jitterWindow, long coalesceWindow) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, () ->
+            new GitHubFetchScheduler(vertx, jitterWindow, coalesceWindow)
+        );
+    }
+
+    /**
+     * @return the next execution after the given instant, <code>null</code> if the configuration has no cron or it never fires again
+     */
+    public Instant nextExecution(GitHubFetcherConfiguration configuration, Instant after) {
+        if (configuration.getFetchCron() == null || configuration.getFetchCron().isEmpty()) {
+            return null;
+        }
+        final CronExpression cron = CronExpression.parse(configuration.getFetchCron());
+        final ZonedDateTime next = cron.next(ZonedDateTime.ofInstant(after, ZoneId.systemDefault()));
+        if (next == null) {
+            return null;
+        }
+
+        long jitter = jitterWindow <= 0 ? 0 : Math.floorMod(coalesceKey(configuration).hashCode(), jitterWindow);
+        // The jitter must not push an execution past the following one
+        final ZonedDateTime following = cron.next(next);
+        if (following != null) {
+            jitter = Math.min(jitter, Math.max(0, Duration.between(next, following).toMillis() - 1));
+        }
+        return next.toInstant().plusMillis(jitter);
+    }
+
+    /**
+     * Fetches the file of the given fetcher, together with the files of the other fetchers of the same repository and ref submitted
+     * within the coalescing window.
+     */
+    public Future<Resource> submit(GitHubFetcher fetcher) {
+        final GitHubFetcherConfiguration configuration = (GitHubFetcherConfiguration) fetcher.getConfiguration();
+        final String key = coalesceKey(configuration);
+        final Promise<Resource> promise = Promise.promise();
+        final boolean first;
+        synchronized (this) {
+            Batch batch = batches.get(key);
+            first = batch == null;
+            if (first) {
+                batch = new Batch(fetcher);
+                batches.put(key, batch);
+            }
+            batch.waiters.computeIfAbsent(configuration.getFilepath(), path -> new ArrayList<>()).add(promise);
+        }
+        if (first) {
+            if (coalesceWindow > 0) {
+                vertx.setTimer(coalesceWindow, id -> run(key));
+            } else {
+                run(key);
+            }
+        }
+        return promise.future();
+    }
+
+    /**
+     * Fetches the file of the given fetcher at each execution of its cron, until the returned schedule is cancelled.
+     */
+    public ScheduledFetch schedule(GitHubFetcher fetcher, Handler<AsyncResult<Resource>> handler) {
+        final ScheduledFetch scheduled = new ScheduledFetch(fetcher, handler);
+        scheduledFetches.add(scheduled);
+        scheduleNext(scheduled);
+        return scheduled;
+    }
+
+    /**
+     * Cancels every scheduled fetch, once the plugin is undeployed.
+     */
+    @Override
+    public void close() {
+        List.copyOf(scheduledFetches).forEach(ScheduledFetch::cancel);
+    }
+
+    private void scheduleNext(ScheduledFetch scheduled) {
+        final Instant now = Instant.now();
+        final Instant next = nextExecution((GitHubFetcherConfiguration) scheduled.fetcher.getConfiguration(), now);
+        if (next == null || scheduled.cancelled) {
+            return;
+        }
+        scheduled.timerId = vertx.setTimer(Math.max(1, Duration.between(now, next).toMillis()), id -> {
+            if (scheduled.cancelled) {
+                return;
+            }
+            submit(scheduled.fetcher).onComplete(ar -> {
+                scheduled.handler.handle(ar);
+                scheduleNext(scheduled);
+            });
+        });
+    }
+
+    private void run(String key) {
+        final Batch batch;
+        synchronized (this) {
+            batch = batches.remove(key);
+        }
+        final List<String> paths = new ArrayList<>(batch.waiters.keySet());
+        log.debug("Fetching {} GitHub files of {} at once", paths.size(), key);
+        final Future<Map<String, Resource>> resources = paths.size() == 1
+            ? batch.fetcher.fetchAsync().map(resource -> Map.of(paths.get(0), resource))
+            : batch.fetcher.fetchAllAsync(paths);
+        resources.onComplete(ar -> {
+            if (ar.failed()) {
+                batch.waiters.values().forEach(waiters -> waiters.forEach(waiter -> waiter.fail(ar.cause())));
+                return;
+            }
+            batch.waiters.forEach((path, waiters) -> complete(path, ar.result().get(path), waiters));
+        });
+    }
+
+    /**
+     * A resource holds a stream which can only be read once, every waiter of the same file gets its own copy. The stream may be backed by
+     * a temporary file, it is read on a worker thread.
+     */
+    private void complete(String path, Resource resource, List<Promise<Resource>> waiters) {
+        if (resource == null) {
+            waiters.forEach(waiter -> waiter.fail(new ResourceNotFoundException("Unable to fetch file '" + path + "' from GitHub", null)));
+            return;
+        }
+        if (waiters.size() == 1) {
+            waiters.get(0).complete(resource);
+            return;
+        }
+        vertx
+            .executeBlocking(
+                () -> {
+                    try (InputStream stream = resource.getContent()) {
+                        return new ContentCache.CachedContent(stream == null ? null : stream.readAllBytes(), resource.getMetadata());
+                    }
+                },
+                false
+            )
+            .onComplete(ar -> {
+                if (ar.failed()) {
+                    waiters.forEach(waiter -> waiter.fail(ar.cause()));
+                    return;
+                }
+                waiters.forEach(waiter -> waiter.complete(ar.result().toResource()));
+            });
+    }
+
+    /**
+     * Fetches are only coalesced when they would be sent the same way: same repository and ref, same credentials and same proxy.
+     */
+    static String coalesceKey(GitHubFetcherConfiguration configuration) {
+        final String credentials = configuration.getUsername() + ":" + configuration.getPersonalAccessToken();
+        return (
+            configuration.getGithubUrl() +
+            "/" +
+            (configuration.getOwner() + "/" + configuration.getRepository()).toLowerCase(Locale.ROOT) +
+            "@" +
+            configuration.getBranchOrTag() +
+            (configuration.isRawContent() ? "#raw" : "") +
+            (configuration.isUseSystemProxy() ? "#proxy" : "") +
+            "#" +
+            CacheKeys.sha256(credentials)
+        );
+    }
+
+    private static final class Batch {
+
+        private final GitHubFetcher fetcher;
+        private final Map<String, List<Promise<Resource>>> waiters = new LinkedHashMap<>();
+
+        private Batch(GitHubFetcher fetcher) {
+            this.fetcher = fetcher;
+        }
+    }
+
+    public final class ScheduledFetch {
+
+        private final GitHubFetcher fetcher;
+        private final Handler<AsyncResult<Resource>> handler;
+        private volatile boolean cancelled;
+        private volatile long timerId = -1;
+
+        private ScheduledFetch(GitHubFetcher fetcher, Handler<AsyncResult<Resource>> handler) {
+            this.fetcher = fetcher;
+            this.handler = handler;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            scheduledFetches.remove(this);
+            if (timerId != -1) {
+                vertx.cancelTimer(timerId);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.util;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of asynchronous operations running at once. Operations beyond the cap are queued, no thread waits for a permit.
+ *
+ * @author GraviteeSource Team
+ */
+public class AsyncSemaphore implements Shareable {
+
+    /**
+     * Operations handed a permit while the thread is already running one, run once it returns instead of from within it.
+     */
+    private static final ThreadLocal<Queue<Runnable>> HANDED_OVER = new ThreadLocal<>();
+
+    private final int permits;
+    private final Queue<Runnable> waiting = new ArrayDeque<>();
+    private int running;
+
+    AsyncSemaphore(int permits) {
+        this.permits = Math.max(1, permits);
+    }
+
+    /**
+     * Node-wide semaphore with the given name, created with the given number of permits the first time it is requested.
+     */
+    public static AsyncSemaphore get(Vertx vertx, String name, int permits) {
+        return GitHubSharedComponents.getOrCreate(vertx, "semaphore-" + name, () -> new AsyncSemaphore(permits));
+    }
+
+    public <T> Future<T> execute(Supplier<Future<T>> operation) {
+        final Promise<T> promise = Promise.promise();
+        final Runnable task = () -> {
+            Future<T> result;
+            try {
+                result = operation.get();
+            } catch (RuntimeException ex) {
+                result = Future.failedFuture(ex);
+            }
+            result.onComplete(ar -> {
+                release();
+                promise.handle(ar);
+            });
+        };
+
+        final boolean acquired;
+        synchronized (this) {
+            acquired = running < permits;
+            if (acquired) {
+                running++;
+            } else {
+                waiting.add(task);
+            }
+        }
+        if (acquired) {
+            task.run();
+        }
+        return promise.future();
+    }
+
+    public synchronized int running() {
+        return running;
+    }
+
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    private void release() {
+        final Runnable next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                running--;
+            }
+        }
+        if (next == null) {
+            return;
+        }
+        // The permit is handed over to the next operation. Operations completing synchronously release their permit from within the
+        // previous one, they are run in a loop so that a long queue does not grow the stack
+        Queue<Runnable> handedOver = HANDED_OVER.get();
+        if (handedOver != null) {
+            handedOver.add(next);
+            return;
+        }
+        handedOver = new ArrayDeque<>();
+        HANDED_OVER.set(handedOver);
+        try {
+            for (Runnable task = next; task != null; task = handedOver.poll()) {
+                task.run();
+            }
+        } finally {
+            HANDED_OVER.remove();
+        }
+    }
+}
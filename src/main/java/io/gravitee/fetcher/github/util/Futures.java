@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.util;
+
+import io.vertx.core.Future;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * @author GraviteeSource Team
+ */
+public final class Futures {
+
+    private Futures() {}
+
+    /**
+     * Applies an asynchronous function to every input, with at most <code>parallelism</code> calls in flight at the same time.
+     *
+     * @return the results by input, in the order of the inputs
+     */
+    public static <T, R> Future<Map<T, R>> mapBounded(List<T> inputs, int parallelism, Function<T, Future<R>> function) {
+        final AtomicReferenceArray<R> results = new AtomicReferenceArray<>(inputs.size());
+        final AtomicInteger next = new AtomicInteger();
+        final List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(Math.max(parallelism, 1), inputs.size()); i++) {
+            workers.add(runNext(inputs, next, results, function));
+        }
+
+        return Future.all(workers).map(done -> {
+            final Map<T, R> resultsByInput = new LinkedHashMap<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                resultsByInput.put(inputs.get(i), results.get(i));
+            }
+            return resultsByInput;
+        });
+    }
+
+    private static <T, R> Future<Void> runNext(
+        List<T> inputs,
+        AtomicInteger next,
+        AtomicReferenceArray<R> results,
+        Function<T, Future<R>> function
+    ) {
+        final int index = next.getAndIncrement();
+        if (index >= inputs.size()) {
+            return Future.succeededFuture();
+        }
+
+        Future<R> result;
+        try {
+            result = function.apply(inputs.get(index));
+        } catch (RuntimeException e) {
+            result = Future.failedFuture(e);
+        }
+        return result.compose(value -> {
+            results.set(index, value);
+            return runNext(inputs, next, results, function);
+        });
+    }
+}
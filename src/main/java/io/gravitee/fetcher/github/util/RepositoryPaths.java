@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.util;
+
+/**
+ * Matching of the paths of a repository against the <code>filepath</code> of a fetcher configuration, shared by the listing of the files
+ * and by the webhooks deciding whether a push changed them.
+ *
+ * @author GraviteeSource Team
+ */
+public final class RepositoryPaths {
+
+    private RepositoryPaths() {}
+
+    /**
+     * Accepts both filepath forms (with or without leading slash); never persisted back to the configuration.
+     */
+    public static String normalize(String filepath) {
+        return filepath == null ? "" : filepath.trim().replaceAll("^/+", "");
+    }
+
+    /**
+     * Whether a path of the repository, without leading slash, is covered by the configured <code>filepath</code>, already
+     * {@link #normalize(String) normalized}: the filepath is matched as a raw prefix, so that it designates a file, a directory or the
+     * beginning of a name alike.
+     */
+    public static boolean isCovered(String path, String filepath) {
+        return filepath.isEmpty() || path.startsWith(filepath);
+    }
+}
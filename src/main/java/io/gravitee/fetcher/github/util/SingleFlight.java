@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.util;
+
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collapses identical concurrent operations: while an operation is running, the callers asking for the same key get its pending
+ * future instead of starting their own. Nothing is kept once it completes, the next caller starts a new operation.
+ *
+ * @author GraviteeSource Team
+ */
+public class SingleFlight implements Shareable {
+
+    private final Map<String, Future<?>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong shared = new AtomicLong();
+
+    SingleFlight() {}
+
+    /**
+     * Node-wide single-flight group with the given name.
+     */
+    public static SingleFlight get(Vertx vertx, String name) {
+        return GitHubSharedComponents.getOrCreate(vertx, "single-flight-" + name, SingleFlight::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Future<T> execute(String key, Supplier<Future<T>> operation) {
+        final Promise<T> promise = Promise.promise();
+        final Future<T> running = promise.future();
+        final Future<?> existing = inFlight.putIfAbsent(key, running);
+        if (existing != null) {
+            shared.incrementAndGet();
+            return (Future<T>) existing;
+        }
+
+        Future<T> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException ex) {
+            result = Future.failedFuture(ex);
+        }
+        result.onComplete(ar -> {
+            inFlight.remove(key, running);
+            promise.handle(ar);
+        });
+        return running;
+    }
+
+    /**
+     * @return the number of callers which joined an operation already running instead of starting their own
+     */
+    public long sharedCount() {
+        return shared.get();
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.webhook;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.gravitee.fetcher.api.FetcherException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.CustomLog;
+
+/**
+ * Handles the GitHub <code>push</code> webhook deliveries, so that pages can be refreshed as soon as their file changes instead of
+ * polling GitHub on a cron.
+ *
+ * The signature of each delivery is checked against the webhook secret, then the fetchers registered in the {@link GitHubWebhookIndex}
+ * for the pushed repository, ref and paths get their cached content invalidated and are notified. When the payload does not tell every
+ * path changed by the push, every fetcher of the ref is.
+ *
+ * @author GraviteeSource Team
+ */
+@CustomLog
+public class GitHubPushWebhookHandler {
+
+    public static final String EVENT_HEADER = "X-GitHub-Event";
+    public static final String SIGNATURE_HEADER = "X-Hub-Signature-256";
+
+    private static final String PUSH_EVENT = "push";
+    private static final String SIGNATURE_PREFIX = "sha256=";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final GitHubWebhookIndex index;
+    private final ObjectReader reader;
+    private final byte[] secret;
+
+    public GitHubPushWebhookHandler(GitHubWebhookIndex index, ObjectMapper mapper, String secret) {
+        this.index = index;
+        this.reader = mapper.readerFor(PushEvent.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param event value of the <code>X-GitHub-Event</code> header
+     * @param signature value of the <code>X-Hub-Signature-256</code> header
+     * @param payload raw body of the delivery, the signature being computed on it
+     * @return the number of fetchers notified, <code>0</code> for other events than <code>push</code>
+     * @throws FetcherException if the signature does not match or the payload cannot be read
+     */
+    public int handle(String event, String signature, byte[] payload) throws FetcherException {
+        if (!isSignatureValid(signature, payload)) {
+            throw new FetcherException("Invalid signature of GitHub webhook delivery", null);
+        }
+        if (!PUSH_EVENT.equals(event)) {
+            log.debug("Ignoring GitHub webhook event '{}'", event);
+            return 0;
+        }
+
+        final PushEvent push;
+        try {
+            push = reader.readValue(payload);
+        } catch (IOException e) {
+            throw new FetcherException("Unable to read GitHub push event (" + e.getMessage() + ")", e);
+        }
+        if (push.repository() == null || push.repository().owner() == null) {
+            return 0;
+        }
+
+        final Set<String> paths = push.hasCompleteChanges() ? push.changedPaths() : null;
+        final List<GitHubWebhookIndex.Registration> affected = index.affected(
+            push.repository().owner().id(),
+            push.repository().name(),
+            push.refName(),
+            push.repository().defaultBranch(),
+            paths
+        );
+        log.debug(
+            "GitHub push on {} changed {} paths, {} fetchers affected",
+            push.ref(),
+            paths == null ? "unknown" : paths.size(),
+            affected.size()
+        );
+        for (GitHubWebhookIndex.Registration registration : affected) {
+            try {
+                registration.notifyChange();
+            } catch (RuntimeException e) {
+                log.error("Unable to notify the change of a GitHub file", e);
+            }
+        }
+        return affected.size();
+    }
+
+    private boolean isSignatureValid(String signature, byte[] payload) {
+        if (signature == null || !signature.startsWith(SIGNATURE_PREFIX)) {
+            return false;
+        }
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            final byte[] expected = mac.doFinal(payload);
+            final byte[] actual = HexFormat.of().parseHex(signature.substring(SIGNATURE_PREFIX.length()));
+            // Constant time comparison, not to leak how much of the signature matched
+            return MessageDigest.isEqual(expected, actual);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
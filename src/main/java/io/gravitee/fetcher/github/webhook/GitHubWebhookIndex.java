@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.webhook;
+
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.gravitee.fetcher.github.GitHubFetcherConfiguration;
+import io.gravitee.fetcher.github.GitHubSharedComponents;
+import io.gravitee.fetcher.github.util.RepositoryPaths;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Node-wide index of the fetchers to notify when a repository receives a push, keyed by owner and repository.
+ *
+ * @author GraviteeSource Team
+ */
+public class GitHubWebhookIndex implements Shareable {
+
+    private static final String COMPONENT_NAME = "webhook-index";
+    private static final String DEFAULT_BRANCH = "master";
+
+    private final Map<String, Set<Registration>> registrations = new ConcurrentHashMap<>();
+
+    GitHubWebhookIndex() {}
+
+    public static GitHubWebhookIndex get(Vertx vertx) {
+        return GitHubSharedComponents.getOrCreate(vertx, COMPONENT_NAME, GitHubWebhookIndex::new);
+    }
+
+    /**
+     * @param onChange called once the cached content of the fetcher has been invalidated, typically to fetch it again
+     * @return the registration, to close when the fetcher is no longer used
+     */
+    public Registration register(GitHubFetcher fetcher, Consumer<GitHubFetcher> onChange) {
+        final GitHubFetcherConfiguration configuration = (GitHubFetcherConfiguration) fetcher.getConfiguration();
+        final Registration registration = new Registration(
+            repositoryKey(configuration.getOwner(), configuration.getRepository()),
+            fetcher,
+            onChange
+        );
+        registrations.computeIfAbsent(registration.repositoryKey, key -> ConcurrentHashMap.newKeySet()).add(registration);
+        return registration;
+    }
+
+    /**
+     * @param defaultBranch default branch of the repository, matching the configurations without any branch or tag
+     * @param paths paths changed by the push, <code>null</code> if they are unknown and every file of the ref may have changed
+     * @return the registrations whose file or directory is affected by one of the paths pushed on the ref
+     */
+    public List<Registration> affected(String owner, String repository, String ref, String defaultBranch, Collection<String> paths) {
+        final Set<Registration> candidates = registrations.get(repositoryKey(owner, repository));
+        if (candidates == null) {
+            return List.of();
+        }
+        final List<Registration> affected = new ArrayList<>();
+        for (Registration registration : candidates) {
+            final GitHubFetcherConfiguration configuration = (GitHubFetcherConfiguration) registration.fetcher.getConfiguration();
+            if (refMatches(configuration.getBranchOrTag(), ref, defaultBranch) && pathMatches(configuration.getFilepath(), paths)) {
+                affected.add(registration);
+            }
+        }
+        return affected;
+    }
+
+    public int size() {
+        return registrations.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private static boolean refMatches(String branchOrTag, String ref, String defaultBranch) {
+        if (branchOrTag == null || branchOrTag.isEmpty()) {
+            return ref != null && ref.equals(defaultBranch != null ? defaultBranch : DEFAULT_BRANCH);
+        }
+        return branchOrTag.equals(ref);
+    }
+
+    private static boolean pathMatches(String filepath, Collection<String> paths) {
+        if (paths == null) {
+            return true;
+        }
+        // A push is relevant as soon as one of its changed files is listed by the fetcher, or was before being removed
+        final String normalized = RepositoryPaths.normalize(filepath);
+        for (String path : paths) {
+            if (RepositoryPaths.isCovered(path, normalized)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String repositoryKey(String owner, String repository) {
+        return (owner + "/" + repository).toLowerCase(Locale.ROOT);
+    }
+
+    public final class Registration implements AutoCloseable {
+
+        private final String repositoryKey;
+        private final GitHubFetcher fetcher;
+        private final Consumer<GitHubFetcher> onChange;
+
+        private Registration(String repositoryKey, GitHubFetcher fetcher, Consumer<GitHubFetcher> onChange) {
+            this.repositoryKey = repositoryKey;
+            this.fetcher = fetcher;
+            this.onChange = onChange;
+        }
+
+        public GitHubFetcher fetcher() {
+            return fetcher;
+        }
+
+        void notifyChange() {
+            fetcher.invalidateCache();
+            onChange.accept(fetcher);
+        }
+
+        @Override
+        public void close() {
+            registrations.computeIfPresent(repositoryKey, (key, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+}
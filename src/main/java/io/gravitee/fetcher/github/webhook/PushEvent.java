@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.webhook;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields of a GitHub <code>push</code> webhook payload needed to find the impacted files.
+ *
+ * @author GraviteeSource Team
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record PushEvent(
+    String ref,
+    boolean forced,
+    Repository repository,
+    List<Commit> commits,
+    @JsonProperty("head_commit") Commit headCommit
+) {
+    private static final String BRANCH_PREFIX = "refs/heads/";
+    private static final String TAG_PREFIX = "refs/tags/";
+    // A push webhook payload lists at most 2048 commits, the paths changed by the others are unknown (the limit of 20 commits only
+    // applies to the push events of the Events API)
+    private static final int MAX_LISTED_COMMITS = 2048;
+
+    /**
+     * @return the pushed branch or tag name, without its <code>refs/heads/</code> or <code>refs/tags/</code> prefix
+     */
+    public String refName() {
+        if (ref == null) {
+            return null;
+        } else if (ref.startsWith(BRANCH_PREFIX)) {
+            return ref.substring(BRANCH_PREFIX.length());
+        } else if (ref.startsWith(TAG_PREFIX)) {
+            return ref.substring(TAG_PREFIX.length());
+        }
+        return ref;
+    }
+
+    /**
+     * Whether {@link #changedPaths()} holds every path changed by the push. It does not when the commits listed may be truncated, when
+     * there is no head commit, the ref being deleted, or when the push was forced, rewriting commits which are not listed.
+     */
+    public boolean hasCompleteChanges() {
+        return !forced && headCommit != null && commits != null && commits.size() < MAX_LISTED_COMMITS;
+    }
+
+    /**
+     * @return every path added, modified or removed by the listed commits
+     */
+    public Set<String> changedPaths() {
+        final Set<String> paths = new LinkedHashSet<>();
+        if (commits != null) {
+            for (Commit commit : commits) {
+                addAll(paths, commit.added());
+                addAll(paths, commit.modified());
+                addAll(paths, commit.removed());
+            }
+        }
+        return paths;
+    }
+
+    private static void addAll(Set<String> paths, List<String> commitPaths) {
+        if (commitPaths != null) {
+            paths.addAll(commitPaths);
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Repository(String name, Owner owner, @JsonProperty("default_branch") String defaultBranch) {}
+
+    /**
+     * The owner is described by <code>login</code> in most payloads, and by <code>name</code> in the legacy <code>push</code> one.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Owner(String login, String name) {
+        public String id() {
+            return login != null ? login : name;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Commit(List<String> added, List<String> modified, List<String> removed) {}
+}
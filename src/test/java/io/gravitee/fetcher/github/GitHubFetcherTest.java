@@ -17,20 +17,33 @@ package io.gravitee.fetcher.github;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.http.Fault;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import io.gravitee.fetcher.api.FetcherException;
 import io.gravitee.fetcher.api.ResourceNotFoundException;
+import io.gravitee.fetcher.github.http.GitHubCircuitBreakers;
+import io.gravitee.fetcher.github.http.GitHubHttpClientRegistry;
+import io.gravitee.fetcher.github.http.GitHubRetrier;
+import io.gravitee.fetcher.github.metrics.GitHubMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.vertx.core.Vertx;
+import java.util.Map;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
 import org.springframework.test.util.ReflectionTestUtils;
 
 /**
@@ -106,6 +119,307 @@ class GitHubFetcherTest {
         assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class);
     }
 
+    @Test
+    void should_retry_transient_failures() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("transient")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(503))
+                .willSetStateTo("recovered")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("transient")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withStatus(200).withBody("{\"sha\": \"abc\"}"))
+        );
+
+        GitHubFetcher fetcher = fetcher(10_000);
+
+        assertThat(fetcher.fetch().getMetadata()).containsEntry("sha", "abc");
+        assertThat(GitHubRetrier.get(vertx).retryCount()).isEqualTo(1);
+        assertThat(GitHubRetrier.get(vertx).exhaustedCount()).isZero();
+    }
+
+    @Test
+    void should_retry_status_codes_injected_from_configuration() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("transient")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(500))
+                .willSetStateTo("recovered")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("transient")
+                .whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withStatus(200).withBody("{\"sha\": \"abc\"}"))
+        );
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context
+                .getEnvironment()
+                .getPropertySources()
+                .addFirst(
+                    new MapPropertySource(
+                        "gravitee",
+                        Map.of(
+                            "httpClient.timeout",
+                            "10000",
+                            "fetcher.github.retry.statusCodes",
+                            "500, 502",
+                            "fetcher.github.retry.exceptions",
+                            "java.io.IOException,java.util.concurrent.TimeoutException"
+                        )
+                    )
+                );
+            context.registerBean(Vertx.class, () -> vertx);
+            context.registerBean(ObjectMapper.class, ObjectMapper::new);
+            context.refresh();
+            GitHubFetcher fetcher = new GitHubFetcher((GitHubFetcherConfiguration) fetcher(10_000).getConfiguration());
+            // Autowired as the host does it, the settings going through the resolution of @Value
+            context.getAutowireCapableBeanFactory().autowireBean(fetcher);
+
+            assertThat(fetcher.fetch().getMetadata()).containsEntry("sha", "abc");
+        }
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_give_up_after_max_attempts() {
+        wiremock.stubFor(get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(aResponse().withStatus(502)));
+
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "retryMaxAttempts", 2);
+
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class).hasMessageContaining("Status code: 502");
+        assertThat(GitHubRetrier.get(vertx).exhaustedCount()).isEqualTo(1);
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_serve_last_known_content_while_circuit_is_open() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("outage")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"etag1\"").withBody("{\"sha\": \"abc\"}"))
+                .willSetStateTo("down")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("outage")
+                .whenScenarioStateIs("down")
+                .willReturn(aResponse().withStatus(500))
+        );
+
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 0L);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerEnabled", true);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerWindowSize", 2);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerMinimumCalls", 2);
+
+        fetcher.fetch();
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class).hasMessageContaining("Status code: 500");
+        assertThat(fetcher.fetch().getMetadata()).containsEntry("sha", "abc").containsEntry(GitHubFetcher.STALE_PROPERTY_KEY, true);
+
+        assertThat(GitHubCircuitBreakers.get(vertx).state("http://localhost:" + wiremock.getPort())).isEqualTo(
+            GitHubCircuitBreakers.State.OPEN
+        );
+        assertThat(GitHubCircuitBreakers.get(vertx).rejectedCount()).isEqualTo(1);
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_fail_fast_while_circuit_is_open() {
+        wiremock.stubFor(get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(aResponse().withStatus(500)));
+
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerEnabled", true);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerWindowSize", 2);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerMinimumCalls", 2);
+
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class);
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class);
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(CircuitBreakerOpenException.class);
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_not_open_circuit_unless_enabled() {
+        wiremock.stubFor(get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(aResponse().withStatus(500)));
+
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerWindowSize", 2);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerMinimumCalls", 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class).isNotInstanceOf(CircuitBreakerOpenException.class);
+        }
+        wiremock.verify(3, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_not_count_waits_for_the_rate_limit_as_slow_calls() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("throttled")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "1"))
+                .willSetStateTo("available")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("throttled")
+                .whenScenarioStateIs("available")
+                .willReturn(aResponse().withStatus(200).withBody("{\"sha\": \"abc\"}"))
+        );
+
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerEnabled", true);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerSlowCallDuration", 500L);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerWindowSize", 1);
+        ReflectionTestUtils.setField(fetcher, "circuitBreakerMinimumCalls", 1);
+
+        assertThat(fetcher.fetch().getMetadata()).containsEntry("sha", "abc");
+
+        assertThat(GitHubCircuitBreakers.get(vertx).state("http://localhost:" + wiremock.getPort())).isEqualTo(
+            GitHubCircuitBreakers.State.CLOSED
+        );
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_reuse_the_same_pooled_client_across_fetchers() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"key\": \"value\"}")
+            )
+        );
+
+        GitHubFetcher first = fetcher(10_000);
+        GitHubFetcher second = fetcher(10_000);
+        ReflectionTestUtils.setField(first, "contentCacheTtl", 0L);
+        ReflectionTestUtils.setField(second, "contentCacheTtl", 0L);
+
+        first.fetch();
+        second.fetch();
+
+        assertThat(GitHubHttpClientRegistry.get(vertx).size()).isEqualTo(1);
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    void should_close_shared_components_once_plugin_is_undeployed() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"key\": \"value\"}")
+            )
+        );
+        fetcher(10_000).fetch();
+        GitHubHttpClientRegistry registry = GitHubHttpClientRegistry.get(vertx);
+        MeterRegistry meters = GitHubMetrics.get(vertx).registry();
+
+        AtomicBoolean undeployed = new AtomicBoolean();
+        GitHubSharedComponents.closeWhen(vertx, undeployed::get, 10);
+        undeployed.set(true);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!vertx.sharedData().getLocalMap("gravitee-fetcher-github").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(registry.size()).isZero();
+        assertThat(meters.find(GitHubMetrics.PREFIX + "requests.inflight").gauge()).isNull();
+        assertThat(vertx.sharedData().getLocalMap("gravitee-fetcher-github")).isEmpty();
+        assertThat(GitHubHttpClientRegistry.get(vertx)).isNotSameAs(registry);
+    }
+
+    @Test
+    void should_report_metrics_of_github_calls() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("X-RateLimit-Remaining", "4999")
+                    .withHeader("X-RateLimit-Reset", "4102444800")
+                    .withBody("{\"sha\": \"abc\", \"content\": \"IyBUaXRsZQ==\"}")
+            )
+        );
+
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 30_000L);
+        fetcher.fetch();
+        fetcher.fetch();
+
+        MeterRegistry registry = GitHubMetrics.get(vertx).registry();
+        Counter responses = registry.get(GitHubMetrics.PREFIX + "responses").tags("status", "200", "repository", "owner/myrepo").counter();
+        assertThat(responses.count()).isEqualTo(1);
+        assertThat(registry.get(GitHubMetrics.PREFIX + "request.duration").tag("phase", "ttfb").timer().count()).isEqualTo(1);
+        assertThat(registry.get(GitHubMetrics.PREFIX + "request.duration").tag("phase", "decode").timer().count()).isEqualTo(1);
+        assertThat(registry.get(GitHubMetrics.PREFIX + "response.size").summary().totalAmount()).isPositive();
+        assertThat(registry.get(GitHubMetrics.PREFIX + "response.size").summary().getId().getTag("repository")).isNull();
+        assertThat(registry.get(GitHubMetrics.PREFIX + "operation.duration").tag("operation", "fetch").timer().count()).isEqualTo(2);
+        assertThat(registry.get(GitHubMetrics.PREFIX + "cache.hits").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get(GitHubMetrics.PREFIX + "ratelimit.remaining").gauge().value()).isEqualTo(4999);
+        assertThat(registry.get(GitHubMetrics.PREFIX + "requests.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void should_reject_file_larger_than_maximum_size_before_downloading_it() {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"sha\": \"abc\", \"size\": 2000, \"content\": \"\", \"encoding\": \"none\"}")
+            )
+        );
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "maxResponseSize", 1_000L);
+
+        assertThatThrownBy(fetcher::fetch)
+            .isInstanceOfSatisfying(ResponseTooLargeException.class, e -> assertThat(e.getSize()).isEqualTo(2000))
+            .hasMessageContaining("path/to/file");
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+        assertThat(rejectedCount("size")).isEqualTo(1);
+    }
+
+    @Test
+    void should_abort_response_announced_larger_than_maximum_size() {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"sha\": \"abc\", \"content\": \"" + "a".repeat(200) + "\"}")
+            )
+        );
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "maxResponseSize", 100L);
+
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(ResponseTooLargeException.class);
+        assertThat(rejectedCount("content-length")).isEqualTo(1);
+    }
+
+    @Test
+    void should_abort_response_exceeding_maximum_size_while_it_is_received() {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody("{\"sha\": \"abc\", \"content\": \"" + "a".repeat(200) + "\"}")
+                    // Sent in chunks, without a Content-Length
+                    .withChunkedDribbleDelay(10, 200)
+            )
+        );
+        GitHubFetcher fetcher = fetcher(10_000);
+        ReflectionTestUtils.setField(fetcher, "maxResponseSize", 100L);
+
+        assertThatThrownBy(fetcher::fetch)
+            .isInstanceOfSatisfying(ResponseTooLargeException.class, e -> assertThat(e.getSize()).isGreaterThan(100));
+        assertThat(rejectedCount("stream")).isEqualTo(1);
+    }
+
+    private double rejectedCount(String reason) {
+        return GitHubMetrics.get(vertx).registry().get(GitHubMetrics.PREFIX + "responses.rejected").tag("reason", reason).counter().count();
+    }
+
     private GitHubFetcher fetcher(int timeoutMs) {
         GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
         config.setOwner("owner");
@@ -115,6 +429,7 @@ class GitHubFetcherTest {
         config.setBranchOrTag("sha1");
         GitHubFetcher fetcher = new GitHubFetcher(config);
         ReflectionTestUtils.setField(fetcher, "httpClientTimeout", timeoutMs);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
         fetcher.setVertx(vertx);
         return fetcher;
     }
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import io.gravitee.fetcher.api.Resource;
+import io.gravitee.fetcher.api.ResourceNotFoundException;
+import io.vertx.core.Vertx;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * @author GraviteeSource Team
+ */
+class GitHubFetcher_ArchiveTest {
+
+    @RegisterExtension
+    static WireMockExtension wiremock = WireMockExtension.newInstance().options(wireMockConfig().dynamicPort()).build();
+
+    private GitHubFetcherConfiguration config;
+    private GitHubFetcher fetcher;
+
+    @BeforeEach
+    public void init() {
+        config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/docs");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        fetcher = new GitHubFetcher(config);
+        fetcher.setVertx(Vertx.vertx());
+    }
+
+    @Test
+    public void shouldExtractMatchingFilesFromArchive() throws Exception {
+        String longPath = "owner-myrepo-sha1/docs/" + "a".repeat(120) + ".md";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        entry(tar, "owner-myrepo-sha1/", '5', new byte[0]);
+        entry(tar, "owner-myrepo-sha1/README.md", '0', "# Readme".getBytes());
+        entry(tar, "owner-myrepo-sha1/docs/", '5', new byte[0]);
+        entry(tar, "owner-myrepo-sha1/docs/index.md", '0', "# Index".getBytes());
+        entry(tar, "owner-myrepo-sha1/docs/Makefile", '0', "all:".getBytes());
+        entry(tar, "PaxHeader", 'x', pax("path", longPath));
+        entry(tar, "owner-myrepo-sha1/docs/truncated", '0', "# Long".getBytes());
+        tar.write(new byte[1024]);
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/tarball/sha1")).willReturn(aResponse().withStatus(200).withBody(gzip(tar.toByteArray())))
+        );
+
+        Map<String, Resource> resources = fetcher.fetchArchive();
+
+        assertThat(resources).containsOnlyKeys("/docs/index.md", "/docs/" + "a".repeat(120) + ".md");
+        Resource index = resources.get("/docs/index.md");
+        assertThat(new String(index.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# Index");
+        assertThat(index.getMetadata()).containsEntry("path", "docs/index.md");
+    }
+
+    @Test
+    public void shouldThrowResourceNotFoundWhenArchiveDoesNotExist() {
+        wiremock.stubFor(get(urlEqualTo("/repos/owner/myrepo/tarball/sha1")).willReturn(aResponse().withStatus(404)));
+
+        assertThatThrownBy(fetcher::fetchArchive).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    public void shouldRejectArchiveWhenExtractedFilesExceedMaxResponseSize() throws Exception {
+        ReflectionTestUtils.setField(fetcher, "maxResponseSize", 10L);
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        entry(tar, "owner-myrepo-sha1/docs/first.md", '0', "# First".getBytes());
+        entry(tar, "owner-myrepo-sha1/docs/second.md", '0', "# Second".getBytes());
+        tar.write(new byte[1024]);
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/tarball/sha1")).willReturn(aResponse().withStatus(200).withBody(gzip(tar.toByteArray())))
+        );
+
+        assertThatThrownBy(fetcher::fetchArchive).isInstanceOf(ResponseTooLargeException.class);
+    }
+
+    private static void entry(ByteArrayOutputStream tar, String name, char type, byte[] content) throws IOException {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        byte[] size = String.format("%011o", content.length).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(size, 0, header, 124, size.length);
+        header[156] = (byte) type;
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+        tar.write(header);
+        tar.write(content);
+        tar.write(new byte[(512 - content.length % 512) % 512]);
+    }
+
+    private static byte[] pax(String keyword, String value) {
+        String record = " " + keyword + "=" + value + "\n";
+        int length = record.getBytes(StandardCharsets.UTF_8).length;
+        length += String.valueOf(length + String.valueOf(length).length()).length();
+        return (length + record).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
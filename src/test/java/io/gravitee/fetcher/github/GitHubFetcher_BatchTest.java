@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import io.gravitee.fetcher.api.Resource;
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * @author GraviteeSource Team
+ */
+class GitHubFetcher_BatchTest {
+
+    // git hash-object of "# A\n"
+    private static final String SHA_A = "7f3b95d297183eca8f6cf38ceaa253bee8c2d7cd";
+
+    @RegisterExtension
+    static WireMockExtension wiremock = WireMockExtension.newInstance().options(wireMockConfig().dynamicPort()).build();
+
+    private GitHubFetcherConfiguration config;
+    private GitHubFetcher fetcher;
+
+    @BeforeEach
+    public void init() {
+        config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        fetcher = new GitHubFetcher(config);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
+        fetcher.setVertx(Vertx.vertx());
+    }
+
+    @Test
+    public void shouldFetchAllWithGraphql() throws Exception {
+        wiremock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .withHeader("Authorization", equalTo("Bearer token"))
+                .willReturn(
+                    aResponse()
+                        .withStatus(200)
+                        .withBody(
+                            "{\"data\": {\"repository\": {" +
+                            "\"f0\": {\"oid\": \"sha-a\", \"byteSize\": 4, \"isBinary\": false, \"isTruncated\": false," +
+                            "\"text\": \"# A\\n\"}," +
+                            "\"f1\": null" +
+                            "}}}"
+                        )
+                )
+        );
+        config.setUsername("user");
+        config.setPersonalAccessToken("token");
+
+        Map<String, Resource> resources = fetcher.fetchAll(List.of("/docs/a.md", "/docs/missing.md"));
+
+        assertThat(resources).containsOnlyKeys("/docs/a.md");
+        Resource resource = resources.get("/docs/a.md");
+        assertThat(new String(resource.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# A\n");
+        assertThat(resource.getMetadata()).containsEntry("sha", "sha-a").containsEntry("path", "docs/a.md");
+        wiremock.verify(1, postRequestedFor(urlEqualTo("/graphql")).withRequestBody(containing("sha1:docs/a.md")));
+    }
+
+    @Test
+    public void shouldFetchAllWithRestWhenGraphqlIsNotAvailable() throws Exception {
+        wiremock.stubFor(post(urlEqualTo("/graphql")).willReturn(aResponse().withStatus(404)));
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/docs/a.md?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"content\": \"" + Base64.getEncoder().encodeToString("# A".getBytes()) + "\"}")
+            )
+        );
+        wiremock.stubFor(get(urlEqualTo("/repos/owner/myrepo/contents/docs/missing.md?ref=sha1")).willReturn(aResponse().withStatus(404)));
+        config.setUsername("user");
+        config.setPersonalAccessToken("token");
+
+        Map<String, Resource> resources = fetcher.fetchAll(List.of("/docs/a.md", "/docs/missing.md"));
+
+        assertThat(resources).containsOnlyKeys("/docs/a.md");
+        assertThat(new String(resources.get("/docs/a.md").getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# A");
+    }
+
+    @Test
+    public void shouldNotDownloadAgainBlobsAlreadyFetchedForAnotherRef() throws Exception {
+        wiremock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .withRequestBody(containing("text"))
+                .willReturn(
+                    aResponse()
+                        .withStatus(200)
+                        .withBody(
+                            "{\"data\": {\"repository\": {" +
+                            "\"f0\": {\"oid\": \"" +
+                            SHA_A +
+                            "\", \"byteSize\": 4, \"isBinary\": false, \"isTruncated\": false, \"text\": \"# A\\n\"}" +
+                            "}}}"
+                        )
+                )
+        );
+        wiremock.stubFor(
+            post(urlEqualTo("/graphql"))
+                .withRequestBody(notContaining("text"))
+                .willReturn(
+                    aResponse()
+                        .withStatus(200)
+                        .withBody(
+                            "{\"data\": {\"repository\": {" +
+                            "\"f0\": {\"oid\": \"" +
+                            SHA_A +
+                            "\", \"byteSize\": 4, \"isBinary\": false}" +
+                            "}}}"
+                        )
+                )
+        );
+        config.setUsername("user");
+        config.setPersonalAccessToken("token");
+        fetcher.fetchAll(List.of("/docs/a.md"));
+        config.setBranchOrTag("v2");
+
+        Map<String, Resource> resources = fetcher.fetchAll(List.of("/docs/a.md"));
+
+        assertThat(new String(resources.get("/docs/a.md").getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("# A\n");
+        assertThat(resources.get("/docs/a.md").getMetadata()).containsEntry("sha", SHA_A);
+        wiremock.verify(1, postRequestedFor(urlEqualTo("/graphql")).withRequestBody(containing("text")));
+        wiremock.verify(1, postRequestedFor(urlEqualTo("/graphql")).withRequestBody(containing("v2:docs/a.md")));
+    }
+}
@@ -17,19 +17,28 @@ package io.gravitee.fetcher.github;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import io.gravitee.fetcher.api.FetcherException;
+import io.gravitee.fetcher.api.Resource;
+import io.gravitee.fetcher.github.cache.ContentCache;
 import io.vertx.core.Vertx;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.test.util.ReflectionTestUtils;
 
 /**
@@ -46,6 +55,9 @@ class GitHubFetcher_FetchTest {
     private Vertx vertx = Vertx.vertx();
     private ObjectMapper mapper = new ObjectMapper();
 
+    @TempDir
+    Path spoolDirectory;
+
     @BeforeEach
     public void init() {
         ReflectionTestUtils.setField(fetcher, "vertx", vertx);
@@ -104,7 +116,7 @@ class GitHubFetcher_FetchTest {
         config.setBranchOrTag("sha1");
         ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
 
-        assertThatThrownBy(fetcher::fetch).hasMessage("Illegal base64 character 20");
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(FetcherException.class).hasMessageContaining("code 0x20");
     }
 
     @Test
@@ -156,4 +168,509 @@ class GitHubFetcher_FetchTest {
             .hasMessageContaining("Status code: 401")
             .hasMessageContaining("Message: Unauthorized");
     }
+
+    @Test
+    public void shouldUseCachedContentWhenNotModified() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withHeader("ETag", "\"etag1\"").withBody("{\"content\": \"" + encoded + "\"}")
+            )
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .withHeader("If-None-Match", equalTo("\"etag1\""))
+                .atPriority(1)
+                .willReturn(aResponse().withStatus(304))
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 0L);
+
+        fetcher.fetch();
+        InputStream fetch = fetcher.fetch().getContent();
+
+        assertThat(fetch).isNotNull();
+        assertThat(new String(fetch.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        wiremock.verify(
+            1,
+            getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).withHeader(
+                "If-None-Match",
+                equalTo("\"etag1\"")
+            )
+        );
+    }
+
+    @Test
+    public void shouldShareCachedContentBetweenFetchers() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"content\": \"" + encoded + "\", \"sha\": \"abc\"}")
+            )
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        GitHubFetcher other = new GitHubFetcher(config);
+        ReflectionTestUtils.setField(other, "vertx", vertx);
+        ReflectionTestUtils.setField(other, "mapper", mapper);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 30_000L);
+        ReflectionTestUtils.setField(other, "contentCacheTtl", 30_000L);
+
+        fetcher.fetch();
+        Resource resource = other.fetch();
+
+        assertThat(new String(resource.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(resource.getMetadata()).containsEntry("sha", "abc");
+        assertThat(ContentCache.get(vertx, 0, 0).hitCount()).isEqualTo(1);
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    public void shouldFetchMultilineBase64ContentAndKeepMetadata() throws Exception {
+        String content = "Gravitee.io is awesome!\n".repeat(100);
+        String encoded = Base64.getMimeEncoder(60, "\n".getBytes()).encodeToString(content.getBytes()).replace("\n", "\\n");
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        "{\"sha\": \"abc\", \"size\": " +
+                        content.length() +
+                        ", \"html_url\": \"https://github.com/owner/myrepo/blob/sha1/path/to/file\", \"content\": \"" +
+                        encoded +
+                        "\", \"encoding\": \"base64\"}"
+                    )
+            )
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+
+        Resource resource = fetcher.fetch();
+
+        assertThat(new String(resource.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(resource.getMetadata())
+            .containsEntry("sha", "abc")
+            .containsEntry("encoding", "base64")
+            .containsEntry(GitHubFetcher.EDIT_URL_PROPERTY_KEY, "https://github.com/owner/myrepo/edit/sha1/path/to/file")
+            .doesNotContainKey("content");
+    }
+
+    @Test
+    public void shouldFetchRawContent() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String sha = "3d21ec53a331a6f037a91c368710b99387d012c1";
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .withHeader("Accept", equalTo("application/vnd.github.raw"))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"" + sha + "\"").withBody(content))
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        config.setRawContent(true);
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+
+        Resource resource = fetcher.fetch();
+
+        assertThat(new String(resource.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(resource.getMetadata())
+            .containsEntry("sha", sha)
+            .containsEntry("name", "file")
+            .containsEntry("html_url", wiremock.baseUrl() + "/owner/myrepo/blob/sha1/path/to/file")
+            .containsEntry(GitHubFetcher.EDIT_URL_PROPERTY_KEY, wiremock.baseUrl() + "/owner/myrepo/edit/sha1/path/to/file")
+            .containsEntry(GitHubFetcher.PROVIDER_NAME_PROPERTY_KEY, "GitHub");
+    }
+
+    @Test
+    public void shouldSpoolLargeRawContentToTemporaryFile() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String sha = "3d21ec53a331a6f037a91c368710b99387d012c1";
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .withHeader("Accept", equalTo("application/vnd.github.raw"))
+                .willReturn(aResponse().withStatus(200).withHeader("ETag", "\"" + sha + "\"").withBody(content))
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        config.setRawContent(true);
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "spoolThreshold", 10L);
+        ReflectionTestUtils.setField(fetcher, "spoolDirectory", spoolDirectory.toString());
+
+        Resource resource = fetcher.fetch();
+
+        assertThat(resource.getMetadata()).containsEntry("sha", sha).containsEntry("size", (long) content.length());
+        try (var files = Files.list(spoolDirectory)) {
+            assertThat(files).hasSize(1);
+        }
+        try (InputStream stream = resource.getContent()) {
+            assertThat(new String(stream.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        }
+        // The temporary file is deleted once the stream is closed
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (isNotEmpty(spoolDirectory) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(isNotEmpty(spoolDirectory)).isFalse();
+    }
+
+    @Test
+    public void shouldKeepChunkedRawContentUnderThresholdInMemory() throws Exception {
+        String content = "Gravitee.io is awesome!";
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .withHeader("Accept", equalTo("application/vnd.github.raw"))
+                .willReturn(aResponse().withStatus(200).withBody(content).withChunkedDribbleDelay(3, 30))
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        config.setRawContent(true);
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 60_000L);
+        ReflectionTestUtils.setField(fetcher, "spoolThreshold", 1_000L);
+        ReflectionTestUtils.setField(fetcher, "spoolDirectory", spoolDirectory.toString());
+
+        Resource first = fetcher.fetch();
+        Resource second = fetcher.fetch();
+
+        assertThat(new String(first.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(new String(second.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(isNotEmpty(spoolDirectory)).isFalse();
+        // Held in memory, the body is kept by the content cache
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    public void shouldFetchRawContentOfFilesLargerThanContentsApiLimit() throws Exception {
+        String content = "Gravitee.io is awesome!";
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"sha\": \"abc\", \"size\": 2000000, \"content\": \"\", \"encoding\": \"none\"}")
+            )
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .withHeader("Accept", equalTo("application/vnd.github.raw"))
+                .atPriority(1)
+                .willReturn(aResponse().withStatus(200).withBody(content))
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+
+        Resource resource = fetcher.fetch();
+
+        assertThat(new String(resource.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(resource.getMetadata()).containsEntry("sha", "abc");
+    }
+
+    @Test
+    public void shouldDownloadLargeBlobOnceWhateverTheRef() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String sha = "c3c776f8f69fcd446eb4ea709c4d4c5b50015376";
+
+        for (String ref : List.of("v1", "v2")) {
+            wiremock.stubFor(
+                get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=" + ref)).willReturn(
+                    aResponse()
+                        .withStatus(200)
+                        .withBody("{\"sha\": \"" + sha + "\", \"size\": 2000000, \"content\": \"\", \"encoding\": \"none\"}")
+                )
+            );
+        }
+        wiremock.stubFor(get(urlEqualTo("/repos/owner/myrepo/git/blobs/" + sha)).willReturn(aResponse().withStatus(200).withBody(content)));
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("v1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+
+        Resource first = fetcher.fetch();
+        config.setBranchOrTag("v2");
+        Resource second = fetcher.fetch();
+
+        assertThat(new String(first.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(new String(second.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/git/blobs/" + sha)));
+    }
+
+    @Test
+    public void shouldFetchAsynchronously() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"content\": \"" + encoded + "\"}")
+            )
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+
+        Resource resource = fetcher.fetchAsync().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertThat(new String(resource.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+    }
+
+    @Test
+    public void shouldReplayRequestRejectedBySecondaryRateLimit() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("rate-limit")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "1"))
+                .willSetStateTo("available")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1"))
+                .inScenario("rate-limit")
+                .whenScenarioStateIs("available")
+                .willReturn(aResponse().withStatus(200).withBody("{\"content\": \"" + encoded + "\"}"))
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+
+        InputStream fetch = fetcher.fetch().getContent();
+
+        assertThat(new String(fetch.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    public void shouldFailFastWhenRateLimitResetIsTooFar() {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse()
+                    .withStatus(403)
+                    .withHeader("X-RateLimit-Remaining", "0")
+                    .withHeader("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600))
+            )
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(RateLimitExceededException.class);
+        assertThatThrownBy(fetcher::fetch).isInstanceOf(RateLimitExceededException.class);
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    public void shouldFetchOnlyWhenCommitMoved() throws Exception {
+        String content = "Gravitee.io is awesome!";
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits?path=path/to/file&sha=sha1&per_page=1")).willReturn(
+                aResponse().withStatus(200).withBody("[{\"sha\": \"c1\"}]")
+            )
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"sha\": \"abc\", \"content\": \"" + encoded + "\"}")
+            )
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("sha1");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+
+        Resource first = fetcher.fetchIfChanged(null);
+        Resource second = fetcher.fetchIfChanged(first.getMetadata());
+
+        assertThat(new String(first.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(first.getMetadata())
+            .containsEntry(GitHubFetcher.COMMIT_SHA_PROPERTY_KEY, "c1")
+            .containsEntry(GitHubFetcher.CHANGED_PROPERTY_KEY, true);
+        assertThat(second.getContent()).isNull();
+        assertThat(second.getMetadata())
+            .containsEntry("sha", "abc")
+            .containsEntry(GitHubFetcher.CHANGED_PROPERTY_KEY, false);
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=sha1")));
+    }
+
+    @Test
+    public void shouldRequestContentsAtTheCommitTheBranchPointsTo() throws Exception {
+        String commit = "6dcb09b5b57875f334f61aebed695e2e4193db5e";
+        String content = "Gravitee.io is awesome!";
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits/main"))
+                .withHeader("Accept", equalTo("application/vnd.github.sha"))
+                .willReturn(aResponse().withStatus(200).withBody(commit))
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=" + commit)).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("ETag", "\"etag1\"")
+                    .withBody(
+                        "{\"sha\": \"abc\", \"html_url\": \"https://github.com/owner/myrepo/blob/" +
+                        commit +
+                        "/path/to/file\", \"content\": \"" +
+                        encoded +
+                        "\"}"
+                    )
+            )
+        );
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("main");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "contentCacheTtl", 0L);
+        ReflectionTestUtils.setField(fetcher, "refResolverTtl", 10_000L);
+
+        Resource first = fetcher.fetch();
+        Resource second = fetcher.fetch();
+
+        assertThat(new String(first.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(new String(second.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+        assertThat(first.getMetadata().get("html_url")).asString().contains("/main/");
+        // The ref is resolved once for its TTL, and the contents at a commit never change so they are not requested again
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/commits/main")));
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=" + commit)));
+        wiremock.verify(0, getRequestedFor(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=main")));
+    }
+
+    @Test
+    public void shouldFetchAtTheNewCommitWhenCommitMovedWhileRefIsResolved() throws Exception {
+        String firstCommit = "6dcb09b5b57875f334f61aebed695e2e4193db5e";
+        String secondCommit = "7fd1a60b01f91b314f59955a4e4d4e80d8edf11d";
+
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits?path=path/to/file&sha=main&per_page=1"))
+                .inScenario("file")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(200).withBody("[{\"sha\": \"" + firstCommit + "\"}]"))
+                .willSetStateTo("moved")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits?path=path/to/file&sha=main&per_page=1"))
+                .inScenario("file")
+                .whenScenarioStateIs("moved")
+                .willReturn(aResponse().withStatus(200).withBody("[{\"sha\": \"" + secondCommit + "\"}]"))
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits/main"))
+                .inScenario("branch")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(200).withBody(firstCommit))
+                .willSetStateTo("moved")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits/main"))
+                .inScenario("branch")
+                .whenScenarioStateIs("moved")
+                .willReturn(aResponse().withStatus(200).withBody(secondCommit))
+        );
+        stubContentsAt(firstCommit, "First version");
+        stubContentsAt(secondCommit, "Second version");
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setBranchOrTag("main");
+        ReflectionTestUtils.setField(fetcher, "gitHubFetcherConfiguration", config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "refResolverTtl", 10_000L);
+
+        Resource first = fetcher.fetchIfChanged(null);
+        Resource second = fetcher.fetchIfChanged(first.getMetadata());
+
+        assertThat(new String(first.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("First version");
+        assertThat(new String(second.getContent().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("Second version");
+        assertThat(second.getMetadata()).containsEntry(GitHubFetcher.COMMIT_SHA_PROPERTY_KEY, secondCommit);
+        wiremock.verify(2, getRequestedFor(urlEqualTo("/repos/owner/myrepo/commits/main")));
+    }
+
+    private void stubContentsAt(String commit, String content) {
+        String encoded = Base64.getEncoder().encodeToString(content.getBytes());
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/contents/path/to/file?ref=" + commit)).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withHeader("ETag", "\"" + commit + "\"")
+                    .withBody("{\"sha\": \"" + commit + "\", \"content\": \"" + encoded + "\"}")
+            )
+        );
+    }
+
+    private static boolean isNotEmpty(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.findAny().isPresent();
+        }
+    }
 }
@@ -17,12 +17,18 @@ package io.gravitee.fetcher.github;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import io.gravitee.fetcher.api.FetcherException;
+import io.gravitee.fetcher.github.util.SingleFlight;
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -51,6 +57,7 @@ class GitHubFetcher_TreeTest {
         config.setBranchOrTag("sha1");
         GitHubFetcher fetcher = new GitHubFetcher(config);
         ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
         fetcher.setVertx(Vertx.vertx());
 
         String[] tree = fetcher.files();
@@ -69,6 +76,7 @@ class GitHubFetcher_TreeTest {
         config.setBranchOrTag("sha1");
         GitHubFetcher fetcher = new GitHubFetcher(config);
         ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
         fetcher.setVertx(Vertx.vertx());
 
         String[] tree = fetcher.files();
@@ -89,6 +97,7 @@ class GitHubFetcher_TreeTest {
         config.setBranchOrTag("sha1");
         GitHubFetcher fetcher = new GitHubFetcher(config);
         ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
         fetcher.setVertx(Vertx.vertx());
 
         String[] tree = fetcher.files();
@@ -117,6 +126,7 @@ class GitHubFetcher_TreeTest {
         config.setBranchOrTag("sha1");
         GitHubFetcher fetcher = new GitHubFetcher(config);
         ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
         fetcher.setVertx(Vertx.vertx());
 
         String[] tree = fetcher.files();
@@ -134,6 +144,76 @@ class GitHubFetcher_TreeTest {
         );
     }
 
+    @Test
+    public void shouldWalkSubtreesWhenTreeIsTruncated() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/git/trees/sha1?recursive=1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"truncated\": true, \"tree\": []}")
+            )
+        );
+        stubTree("sha1", "{\"path\": \"path\", \"type\": \"tree\", \"sha\": \"t-path\"}", "{\"path\": \"README.md\", \"type\": \"blob\"}");
+        stubTree("t-path", "{\"path\": \"to\", \"type\": \"tree\", \"sha\": \"t-to\"}");
+        stubTree(
+            "t-to",
+            "{\"path\": \"file\", \"type\": \"tree\", \"sha\": \"t-file\"}",
+            "{\"path\": \"other\", \"type\": \"tree\", \"sha\": \"t-other\"}"
+        );
+        stubTree(
+            "t-file",
+            "{\"path\": \"doc.md\", \"type\": \"blob\"}",
+            "{\"path\": \"LICENSE\", \"type\": \"blob\"}",
+            "{\"path\": \"subpath\", \"type\": \"tree\", \"sha\": \"t-subpath\"}"
+        );
+        stubTree("t-subpath", "{\"path\": \"swagger.yml\", \"type\": \"blob\"}");
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl("http://localhost:" + wiremock.getPort());
+        config.setBranchOrTag("sha1");
+        GitHubFetcher fetcher = new GitHubFetcher(config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
+        fetcher.setVertx(Vertx.vertx());
+
+        String[] tree = fetcher.files();
+
+        assertThat(tree).containsExactlyInAnyOrder("/path/to/file/doc.md", "/path/to/file/subpath/swagger.yml");
+        wiremock.verify(0, getRequestedFor(urlEqualTo("/repos/owner/myrepo/git/trees/t-other")));
+    }
+
+    @Test
+    public void shouldShareOneRequestBetweenConcurrentListings() throws Exception {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/git/trees/sha1?recursive=1")).willReturn(
+                aResponse().withStatus(200).withFixedDelay(300).withBody(treeResponse)
+            )
+        );
+        Vertx vertx = Vertx.vertx();
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl("http://localhost:" + wiremock.getPort());
+        config.setBranchOrTag("sha1");
+        GitHubFetcher first = new GitHubFetcher(config);
+        GitHubFetcher second = new GitHubFetcher(config);
+        for (GitHubFetcher fetcher : List.of(first, second)) {
+            ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+            ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
+            fetcher.setVertx(vertx);
+        }
+
+        Future<String[]> firstTree = first.filesAsync();
+        Future<String[]> secondTree = second.filesAsync();
+
+        assertThat(firstTree.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS)).hasSize(5);
+        assertThat(secondTree.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS)).hasSize(5);
+        assertThat(SingleFlight.get(vertx, "requests").sharedCount()).isEqualTo(1);
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/git/trees/sha1?recursive=1")));
+        vertx.close();
+    }
+
     @Test
     public void shouldThrowExceptionWhenStatusNot200() throws Exception {
         wiremock.stubFor(
@@ -148,11 +228,123 @@ class GitHubFetcher_TreeTest {
         config.setGithubUrl("http://localhost:" + wiremock.getPort());
         config.setBranchOrTag("sha1");
         GitHubFetcher fetcher = new GitHubFetcher(config);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
         fetcher.setVertx(Vertx.vertx());
 
         assertThatThrownBy(fetcher::files).isInstanceOf(FetcherException.class).hasMessageContaining("Unable to fetch GitHub content (");
     }
 
+    @Test
+    public void shouldListOnlyChangesSinceLastListedCommit() throws Exception {
+        stubPush(FIRST_COMMIT, SECOND_COMMIT);
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/git/trees/" + FIRST_COMMIT + "?recursive=1")).willReturn(
+                aResponse().withStatus(200).withBody(treeResponse)
+            )
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/compare/" + FIRST_COMMIT + "..." + SECOND_COMMIT + "?per_page=1")).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        "{\"status\": \"ahead\", \"files\": [" +
+                        "{\"filename\": \"path/to/file/new.md\", \"status\": \"added\"}," +
+                        "{\"filename\": \"path/to/file/doc2.MD\", \"status\": \"removed\"}," +
+                        "{\"filename\": \"path/to/file/api.yml\", \"status\": \"renamed\", " +
+                        "\"previous_filename\": \"path/to/file/swagger.yml\"}," +
+                        "{\"filename\": \"path/to/file/doc.md\", \"status\": \"modified\"}," +
+                        "{\"filename\": \"CONTRIBUTING.md\", \"status\": \"added\"}" +
+                        "]}"
+                    )
+            )
+        );
+        GitHubFetcher fetcher = branchFetcher();
+
+        String[] first = fetcher.files();
+        fetcher.invalidateCache();
+        String[] second = fetcher.files();
+
+        assertThat(first).hasSize(5).isSorted();
+        assertThat(second).containsExactly(
+            "/path/to/file/api.yml",
+            "/path/to/file/doc.md",
+            "/path/to/file/doc2.UNKNOWN",
+            "/path/to/file/new.md",
+            "/path/to/file/subpath/doc.md"
+        );
+        wiremock.verify(0, getRequestedFor(urlEqualTo("/repos/owner/myrepo/git/trees/" + SECOND_COMMIT + "?recursive=1")));
+    }
+
+    @Test
+    public void shouldScanTreeAgainWhenLastListedCommitIsNotAnAncestor() throws Exception {
+        stubPush(FIRST_COMMIT, SECOND_COMMIT);
+        for (String commit : List.of(FIRST_COMMIT, SECOND_COMMIT)) {
+            wiremock.stubFor(
+                get(urlEqualTo("/repos/owner/myrepo/git/trees/" + commit + "?recursive=1")).willReturn(
+                    aResponse().withStatus(200).withBody(treeResponse)
+                )
+            );
+        }
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/compare/" + FIRST_COMMIT + "..." + SECOND_COMMIT + "?per_page=1")).willReturn(
+                aResponse().withStatus(200).withBody("{\"status\": \"diverged\", \"files\": []}")
+            )
+        );
+        GitHubFetcher fetcher = branchFetcher();
+
+        fetcher.files();
+        fetcher.invalidateCache();
+        String[] second = fetcher.files();
+
+        assertThat(second).hasSize(5);
+        wiremock.verify(1, getRequestedFor(urlEqualTo("/repos/owner/myrepo/git/trees/" + SECOND_COMMIT + "?recursive=1")));
+    }
+
+    /**
+     * The branch points to the first commit, then to the second one once pushed.
+     */
+    private void stubPush(String before, String after) {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits/main"))
+                .inScenario("push")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(200).withBody(before))
+                .willSetStateTo("pushed")
+        );
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/commits/main"))
+                .inScenario("push")
+                .whenScenarioStateIs("pushed")
+                .willReturn(aResponse().withStatus(200).withBody(after))
+        );
+    }
+
+    private GitHubFetcher branchFetcher() {
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setOwner("owner");
+        config.setRepository("myrepo");
+        config.setFilepath("/path/to/file");
+        config.setGithubUrl("http://localhost:" + wiremock.getPort());
+        config.setBranchOrTag("main");
+        GitHubFetcher fetcher = new GitHubFetcher(config);
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
+        ReflectionTestUtils.setField(fetcher, "refResolverTtl", 10_000L);
+        fetcher.setVertx(Vertx.vertx());
+        return fetcher;
+    }
+
+    private void stubTree(String sha, String... entries) {
+        wiremock.stubFor(
+            get(urlEqualTo("/repos/owner/myrepo/git/trees/" + sha)).willReturn(
+                aResponse().withStatus(200).withBody("{\"truncated\": false, \"tree\": [" + String.join(",", entries) + "]}")
+            )
+        );
+    }
+
+    private static final String FIRST_COMMIT = "6dcb09b5b57875f334f61aebed695e2e4193db5e";
+    private static final String SECOND_COMMIT = "7638417db6d59f3c431d3e1f261cc637155684cd";
+
     private final String treeResponse = """
         {
             "sha": "28bd3de3c32304841eb69d80079ffcc447f9ce6f",
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+class GitHubSharedComponentsTest {
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void should_detect_that_plugin_class_loader_has_been_closed() throws Exception {
+        URL classes = GitHubSharedComponents.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader pluginClassLoader = new URLClassLoader(new URL[] { classes }, null);
+
+        assertThat(GitHubSharedComponents.isUndeployed(pluginClassLoader)).isFalse();
+        pluginClassLoader.close();
+        assertThat(GitHubSharedComponents.isUndeployed(pluginClassLoader)).isTrue();
+        assertThat(GitHubSharedComponents.isUndeployed(GitHubSharedComponents.class.getClassLoader())).isFalse();
+    }
+
+    @Test
+    void should_close_components_left_by_a_previous_deployment() {
+        LocalMap<String, Shareable> components = vertx.sharedData().getLocalMap("gravitee-fetcher-github");
+        ClosableComponent previous = new ClosableComponent();
+        components.put("http-client-registry@previous", previous);
+
+        ClosableComponent current = GitHubSharedComponents.getOrCreate(vertx, "http-client-registry", ClosableComponent::new);
+
+        assertThat(previous.closed).isTrue();
+        assertThat(current.closed).isFalse();
+        assertThat(components).doesNotContainKey("http-client-registry@previous").hasSize(1);
+    }
+
+    private static final class ClosableComponent implements Shareable, AutoCloseable {
+
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
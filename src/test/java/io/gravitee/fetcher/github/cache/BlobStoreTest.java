@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author GraviteeSource Team
+ */
+class BlobStoreTest {
+
+    // git hash-object of "# A\n"
+    private static final String SHA = "7f3b95d297183eca8f6cf38ceaa253bee8c2d7cd";
+    private static final byte[] CONTENT = "# A\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    void should_only_store_blobs_matching_their_sha() throws Exception {
+        BlobStore store = new BlobStore(vertx, 1_000, null, 0);
+
+        assertThat(store.put(SHA, "# B\n".getBytes(StandardCharsets.UTF_8))).isFalse();
+        assertThat(await(store.get(SHA))).isNull();
+        assertThat(store.put(SHA, CONTENT)).isTrue();
+        assertThat(await(store.get(SHA))).isEqualTo(CONTENT);
+        assertThat(store.hitCount()).isEqualTo(1);
+        assertThat(store.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void should_load_unknown_blob_once() throws Exception {
+        BlobStore store = new BlobStore(vertx, 1_000, null, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        await(store.getOrLoad(SHA, () -> Future.succeededFuture(load(loads))));
+        byte[] content = await(store.getOrLoad(SHA, () -> Future.succeededFuture(load(loads))));
+
+        assertThat(content).isEqualTo(CONTENT);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void should_serve_blobs_from_disk_after_restart() throws Exception {
+        BlobStore store = new BlobStore(vertx, 1_000, directory, 1_000);
+        store.put(SHA, CONTENT);
+        Path file = directory.resolve(SHA + ".blob");
+        for (int i = 0; i < 50 && !Files.exists(file); i++) {
+            Thread.sleep(20);
+        }
+
+        BlobStore restarted = new BlobStore(vertx, 1_000, directory, 1_000);
+
+        assertThat(await(restarted.get(SHA))).isEqualTo(CONTENT);
+    }
+
+    private static byte[] load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return CONTENT;
+    }
+
+    private static byte[] await(Future<byte[]> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+class ContentCacheTest {
+
+    @Test
+    void should_serve_cached_content_until_evicted_by_size() {
+        ContentCache cache = new ContentCache(60_000, 1_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad("a", () -> Future.succeededFuture(content(loads, 400)));
+        cache.getOrLoad("a", () -> Future.succeededFuture(content(loads, 400)));
+        cache.getOrLoad("b", () -> Future.succeededFuture(content(loads, 400)));
+        cache.getOrLoad("a", () -> Future.succeededFuture(content(loads, 400)));
+
+        assertThat(loads).hasValue(3);
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(3);
+        assertThat(cache.sizeInBytes()).isLessThanOrEqualTo(1_000);
+    }
+
+    @Test
+    void should_not_store_content_when_ttl_is_zero() {
+        ContentCache cache = new ContentCache(0, 1_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad("a", () -> Future.succeededFuture(content(loads, 10)));
+        cache.getOrLoad("a", () -> Future.succeededFuture(content(loads, 10)));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void should_collapse_concurrent_misses() {
+        ContentCache cache = new ContentCache(0, 1_000);
+        AtomicInteger loads = new AtomicInteger();
+        Promise<ContentCache.CachedContent> loading = Promise.promise();
+
+        Future<ContentCache.CachedContent> first = cache.getOrLoad("a", () -> {
+            loads.incrementAndGet();
+            return loading.future();
+        });
+        Future<ContentCache.CachedContent> second = cache.getOrLoad("a", () -> Future.succeededFuture(content(loads, 10)));
+        loading.complete(new ContentCache.CachedContent(new byte[10], Map.of()));
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.result()).isSameAs(first.result());
+        assertThat(loads).hasValue(1);
+    }
+
+    private static ContentCache.CachedContent content(AtomicInteger loads, int size) {
+        loads.incrementAndGet();
+        return new ContentCache.CachedContent(new byte[size], Map.of());
+    }
+}
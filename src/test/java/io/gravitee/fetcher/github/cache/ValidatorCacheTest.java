@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author GraviteeSource Team
+ */
+class ValidatorCacheTest {
+
+    @Test
+    void should_evict_least_recently_used_responses_by_size() {
+        ValidatorCache cache = new ValidatorCache(null, 100, 2_000, 1_000, null);
+
+        cache.put("a", response(800));
+        cache.put("b", response(800));
+        cache.get("a");
+        cache.put("c", response(800));
+
+        assertThat(cache.get("a").result()).isNotNull();
+        assertThat(cache.get("b").result()).isNull();
+        assertThat(cache.get("c").result()).isNotNull();
+        assertThat(cache.sizeInBytes()).isLessThanOrEqualTo(2_000);
+    }
+
+    @Test
+    void should_not_keep_responses_larger_than_max_entry_size() {
+        ValidatorCache cache = new ValidatorCache(null, 100, 10_000, 1_000, null);
+
+        cache.put("a", response(500));
+        cache.put("a", response(1_500));
+
+        assertThat(cache.get("a").result()).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.sizeInBytes()).isZero();
+    }
+
+    @Test
+    void should_not_leave_on_disk_responses_evicted_right_after_being_written(@TempDir Path directory) throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            ValidatorCache cache = new ValidatorCache(vertx, 1, 10_000, 1_000, directory);
+
+            for (int i = 0; i < 100; i++) {
+                cache.put("key" + i, response(100));
+            }
+            cache.flush().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+            try (Stream<Path> files = Files.list(directory)) {
+                assertThat(files.map(path -> path.getFileName().toString())).containsExactly(CacheKeys.sha256("key99") + ".entry");
+            }
+        } finally {
+            vertx.close();
+        }
+    }
+
+    private static ValidatorCache.CachedResponse response(int size) {
+        return new ValidatorCache.CachedResponse("\"etag\"", null, Buffer.buffer(new byte[size]));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.schedule;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import io.gravitee.fetcher.api.Resource;
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.gravitee.fetcher.github.GitHubFetcherConfiguration;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * @author GraviteeSource Team
+ */
+class GitHubFetchSchedulerTest {
+
+    @RegisterExtension
+    static WireMockExtension wiremock = WireMockExtension.newInstance().options(wireMockConfig().dynamicPort()).build();
+
+    private final Vertx vertx = Vertx.vertx();
+
+    @AfterEach
+    void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    void should_spread_executions_by_repository_within_jitter_window() {
+        GitHubFetchScheduler scheduler = new GitHubFetchScheduler(vertx, 60_000, 0);
+        Instant after = Instant.parse("2024-01-01T10:02:00Z");
+
+        Instant first = scheduler.nextExecution(config("myrepo", "/a.md", "0 */5 * * * *"), after);
+        Instant sameRepository = scheduler.nextExecution(config("myrepo", "/b.md", "0 */5 * * * *"), after);
+        Instant otherRepository = scheduler.nextExecution(config("other", "/a.md", "0 */5 * * * *"), after);
+
+        assertThat(first).isBetween(Instant.parse("2024-01-01T10:05:00Z"), Instant.parse("2024-01-01T10:06:00Z"));
+        assertThat(otherRepository).isBetween(Instant.parse("2024-01-01T10:05:00Z"), Instant.parse("2024-01-01T10:06:00Z"));
+        assertThat(sameRepository).isEqualTo(first);
+    }
+
+    @Test
+    void should_coalesce_fetches_of_the_same_repository_and_ref() throws Exception {
+        wiremock.stubFor(
+            post(urlEqualTo("/graphql")).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        "{\"data\": {\"repository\": {" +
+                        "\"f0\": {\"oid\": \"sha-a\", \"byteSize\": 3, \"isBinary\": false, \"isTruncated\": false, \"text\": \"# A\"}," +
+                        "\"h0\": {\"history\": {\"nodes\": [{\"oid\": \"commit-a\"}]}}," +
+                        "\"f1\": {\"oid\": \"sha-b\", \"byteSize\": 3, \"isBinary\": false, \"isTruncated\": false, \"text\": \"# B\"}," +
+                        "\"h1\": {\"history\": {\"nodes\": [{\"oid\": \"commit-b\"}]}}" +
+                        "}}}"
+                    )
+            )
+        );
+        GitHubFetchScheduler scheduler = new GitHubFetchScheduler(vertx, 0, 100);
+
+        Future<Resource> a = scheduler.submit(fetcher(config("myrepo", "/a.md", null)));
+        Future<Resource> b = scheduler.submit(fetcher(config("myrepo", "/b.md", null)));
+        Future<Resource> sameAsA = scheduler.submit(fetcher(config("myrepo", "/a.md", null)));
+
+        assertThat(content(a)).isEqualTo("# A");
+        assertThat(content(b)).isEqualTo("# B");
+        assertThat(content(sameAsA)).isEqualTo("# A");
+        wiremock.verify(1, postRequestedFor(urlEqualTo("/graphql")));
+    }
+
+    @Test
+    void should_describe_coalesced_files_as_fetched_one_by_one() throws Exception {
+        wiremock.stubFor(
+            post(urlEqualTo("/graphql")).willReturn(
+                aResponse()
+                    .withStatus(200)
+                    .withBody(
+                        "{\"data\": {\"repository\": {" +
+                        "\"f0\": {\"oid\": \"sha-a\", \"byteSize\": 3, \"isBinary\": false, \"isTruncated\": false, \"text\": \"# A\"}," +
+                        "\"h0\": {\"history\": {\"nodes\": [{\"oid\": \"commit-a\"}]}}," +
+                        "\"f1\": {\"oid\": \"sha-b\", \"byteSize\": 3, \"isBinary\": false, \"isTruncated\": false, \"text\": \"# B\"}" +
+                        "}}}"
+                    )
+            )
+        );
+        GitHubFetchScheduler scheduler = new GitHubFetchScheduler(vertx, 0, 100);
+
+        Future<Resource> a = scheduler.submit(fetcher(config("myrepo", "/a.md", null)));
+        Future<Resource> b = scheduler.submit(fetcher(config("myrepo", "/b.md", null)));
+
+        Map<String, Object> metadata = a.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS).getMetadata();
+        assertThat(metadata)
+            .containsEntry("url", wiremock.baseUrl() + "/repos/owner/myrepo/contents/a.md?ref=main")
+            .containsEntry("type", "file")
+            .containsEntry("encoding", "base64")
+            .containsEntry("sha", "sha-a")
+            .containsEntry(GitHubFetcher.COMMIT_SHA_PROPERTY_KEY, "commit-a");
+        assertThat(b.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS).getMetadata()).doesNotContainKey(
+            GitHubFetcher.COMMIT_SHA_PROPERTY_KEY
+        );
+    }
+
+    @Test
+    void should_not_coalesce_fetches_sent_through_a_different_proxy() {
+        GitHubFetcherConfiguration direct = config("myrepo", "/a.md", null);
+        GitHubFetcherConfiguration proxied = config("myrepo", "/b.md", null);
+        proxied.setUseSystemProxy(true);
+
+        assertThat(GitHubFetchScheduler.coalesceKey(proxied)).isNotEqualTo(GitHubFetchScheduler.coalesceKey(direct));
+        assertThat(GitHubFetchScheduler.coalesceKey(config("myrepo", "/b.md", null))).isEqualTo(GitHubFetchScheduler.coalesceKey(direct));
+    }
+
+    private GitHubFetcherConfiguration config(String repository, String filepath, String fetchCron) {
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setGithubUrl(wiremock.baseUrl());
+        config.setOwner("owner");
+        config.setRepository(repository);
+        config.setBranchOrTag("main");
+        config.setFilepath(filepath);
+        config.setFetchCron(fetchCron);
+        config.setUsername("user");
+        config.setPersonalAccessToken("token");
+        return config;
+    }
+
+    private GitHubFetcher fetcher(GitHubFetcherConfiguration config) {
+        GitHubFetcher fetcher = new GitHubFetcher(config);
+        ReflectionTestUtils.setField(fetcher, "mapper", new ObjectMapper());
+        ReflectionTestUtils.setField(fetcher, "httpClientTimeout", 10_000);
+        fetcher.setVertx(vertx);
+        return fetcher;
+    }
+
+    private static String content(Future<Resource> resource) throws Exception {
+        Resource fetched = resource.toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+        return new String(fetched.getContent().readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
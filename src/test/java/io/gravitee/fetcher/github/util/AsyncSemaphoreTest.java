@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+class AsyncSemaphoreTest {
+
+    @Test
+    void should_cap_the_number_of_running_operations() {
+        AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        Promise<String> first = Promise.promise();
+
+        Future<String> running = semaphore.execute(first::future);
+        Future<String> queued = semaphore.execute(() -> Future.succeededFuture("second"));
+
+        assertThat(semaphore.running()).isEqualTo(1);
+        assertThat(semaphore.waiting()).isEqualTo(1);
+        assertThat(queued.isComplete()).isFalse();
+
+        first.complete("first");
+
+        assertThat(running.result()).isEqualTo("first");
+        assertThat(queued.result()).isEqualTo("second");
+        assertThat(semaphore.running()).isZero();
+    }
+
+    @Test
+    void should_run_a_long_queue_of_completed_operations_without_overflowing_the_stack() {
+        AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        Promise<Integer> first = Promise.promise();
+        semaphore.execute(first::future);
+        List<Future<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            final int value = i;
+            queued.add(semaphore.execute(() -> Future.succeededFuture(value)));
+        }
+
+        first.complete(-1);
+
+        assertThat(queued).allMatch(Future::succeeded);
+        assertThat(queued.get(queued.size() - 1).result()).isEqualTo(99_999);
+        assertThat(semaphore.running()).isZero();
+        assertThat(semaphore.waiting()).isZero();
+    }
+}
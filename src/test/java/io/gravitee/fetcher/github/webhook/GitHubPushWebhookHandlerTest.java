@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2015 The Gravitee team (http://gravitee.io)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.gravitee.fetcher.github.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gravitee.fetcher.api.FetcherException;
+import io.gravitee.fetcher.github.GitHubFetcher;
+import io.gravitee.fetcher.github.GitHubFetcherConfiguration;
+import io.vertx.core.Vertx;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author GraviteeSource Team
+ */
+class GitHubPushWebhookHandlerTest {
+
+    private static final String SECRET = "s3cr3t";
+    private static final String PAYLOAD = """
+        {
+            "ref": "refs/heads/main",
+            "repository": { "name": "myrepo", "owner": { "name": "owner" }, "default_branch": "main" },
+            "commits": [
+                { "added": [], "modified": ["docs/api/swagger.yml"], "removed": [] },
+                { "added": ["README.md"], "modified": [], "removed": [] }
+            ],
+            "head_commit": { "added": ["README.md"], "modified": [], "removed": [] }
+        }
+        """;
+
+    private final Vertx vertx = Vertx.vertx();
+    private final GitHubWebhookIndex index = GitHubWebhookIndex.get(vertx);
+    private final GitHubPushWebhookHandler handler = new GitHubPushWebhookHandler(index, new ObjectMapper(), SECRET);
+    private final List<GitHubFetcher> notified = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        vertx.close();
+    }
+
+    @Test
+    void should_notify_fetchers_of_changed_files_only() throws Exception {
+        GitHubFetcher swagger = register("/docs/api/swagger.yml", "main").fetcher();
+        GitHubFetcher directory = register("/docs", null).fetcher();
+        // The filepath is matched as a prefix, as when the files are listed
+        GitHubFetcher prefix = register("/docs/api/swag", "main").fetcher();
+        register("/docs/api/other.md", "main");
+        register("/docs/api/swagger.yml/", "main");
+        register("/docs/api/swagger.yml", "develop");
+
+        int affected = handler.handle("push", sign(PAYLOAD), PAYLOAD.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(affected).isEqualTo(3);
+        assertThat(notified).containsExactlyInAnyOrder(swagger, directory, prefix);
+    }
+
+    @Test
+    void should_notify_every_fetcher_of_the_ref_when_push_is_forced() throws Exception {
+        String payload = PAYLOAD.replace("\"ref\": \"refs/heads/main\",", "\"ref\": \"refs/heads/main\", \"forced\": true,");
+        GitHubFetcher swagger = register("/docs/api/swagger.yml", "main").fetcher();
+        GitHubFetcher other = register("/docs/api/other.md", "main").fetcher();
+        register("/docs/api/swagger.yml", "develop");
+
+        int affected = handler.handle("push", sign(payload), payload.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(affected).isEqualTo(2);
+        assertThat(notified).containsExactlyInAnyOrder(swagger, other);
+    }
+
+    @Test
+    void should_notify_fetchers_of_changed_files_only_when_many_commits_are_pushed() throws Exception {
+        String payload = pushOf(100);
+        GitHubFetcher swagger = register("/docs/api/swagger.yml", "main").fetcher();
+        register("/docs/api/other.md", "main");
+
+        int affected = handler.handle("push", sign(payload), payload.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(affected).isEqualTo(1);
+        assertThat(notified).containsExactly(swagger);
+    }
+
+    @Test
+    void should_notify_every_fetcher_of_the_ref_when_listed_commits_may_be_truncated() throws Exception {
+        String payload = pushOf(2048);
+        GitHubFetcher swagger = register("/docs/api/swagger.yml", "main").fetcher();
+        GitHubFetcher other = register("/docs/api/other.md", "main").fetcher();
+
+        int affected = handler.handle("push", sign(payload), payload.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(affected).isEqualTo(2);
+        assertThat(notified).containsExactlyInAnyOrder(swagger, other);
+    }
+
+    @Test
+    void should_reject_invalid_signature() {
+        register("/docs/api/swagger.yml", "main");
+
+        assertThatThrownBy(() -> handler.handle("push", "sha256=00", PAYLOAD.getBytes(StandardCharsets.UTF_8))).isInstanceOf(
+            FetcherException.class
+        );
+        assertThat(notified).isEmpty();
+    }
+
+    @Test
+    void should_ignore_other_events_and_closed_registrations() throws Exception {
+        register("/docs/api/swagger.yml", "main").close();
+
+        assertThat(handler.handle("ping", sign(PAYLOAD), PAYLOAD.getBytes(StandardCharsets.UTF_8))).isZero();
+        assertThat(handler.handle("push", sign(PAYLOAD), PAYLOAD.getBytes(StandardCharsets.UTF_8))).isZero();
+        assertThat(index.size()).isZero();
+    }
+
+    private GitHubWebhookIndex.Registration register(String filepath, String branchOrTag) {
+        GitHubFetcherConfiguration config = new GitHubFetcherConfiguration();
+        config.setGithubUrl("https://api.github.com");
+        config.setOwner("Owner");
+        config.setRepository("myrepo");
+        config.setFilepath(filepath);
+        config.setBranchOrTag(branchOrTag);
+        GitHubFetcher fetcher = new GitHubFetcher(config);
+        fetcher.setVertx(vertx);
+        return index.register(fetcher, notified::add);
+    }
+
+    private static String pushOf(int commits) {
+        String commit = "{ \"added\": [], \"modified\": [\"docs/api/swagger.yml\"], \"removed\": [] }";
+        return """
+        {
+            "ref": "refs/heads/main",
+            "repository": { "name": "myrepo", "owner": { "name": "owner" }, "default_branch": "main" },
+            "commits": [%s],
+            "head_commit": %s
+        }
+        """.formatted(String.join(",", Collections.nCopies(commits, commit)), commit);
+    }
+
+    private static String sign(String payload) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return "sha256=" + HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+}